@@ -5,7 +5,9 @@ import etherested.spoilage.advancement.ModTriggers;
 import etherested.spoilage.registry.ModBlocks;
 import etherested.spoilage.component.ModDataComponents;
 import etherested.spoilage.config.SpoilageConfig;
+import etherested.spoilage.data.ModAttachments;
 import etherested.spoilage.registry.ModItems;
+import etherested.spoilage.logic.PlayerInventoryTracker;
 import etherested.spoilage.logic.preservation.PreservationManager;
 import etherested.spoilage.loot.ModLootFunctions;
 import org.slf4j.Logger;
@@ -33,6 +35,7 @@ public class Spoilage
     //? if neoforge {
     public Spoilage(IEventBus modEventBus, ModContainer modContainer) {
         ModDataComponents.register(modEventBus);
+        ModAttachments.register(modEventBus);
         ModBlocks.register(modEventBus);
         ModItems.register(modEventBus);
         ModLootFunctions.register(modEventBus);
@@ -41,6 +44,8 @@ public class Spoilage
         modEventBus.addListener(this::commonSetup);
 
         SpoilageConfig.load();
+        // skipped player inventory passes depend on lifetimes and spoilage speed
+        SpoilageConfig.addChangeListener(PlayerInventoryTracker::invalidateAll);
 
         if (SpoilageConfigScreen.isAvailable()) {
             modContainer.registerExtensionPoint(IConfigScreenFactory.class,
@@ -60,7 +65,10 @@ public class Spoilage
     /*@Override
     public void onInitialize() {
         SpoilageConfig.load();
+        // skipped player inventory passes depend on lifetimes and spoilage speed
+        SpoilageConfig.addChangeListener(PlayerInventoryTracker::invalidateAll);
         ModDataComponents.register();
+        ModAttachments.register();
         ModBlocks.register();
         ModItems.register();
         ModLootFunctions.register();
@@ -69,9 +77,11 @@ public class Spoilage
 
         etherested.spoilage.event.SpoilageEvents.registerFabricEvents();
         etherested.spoilage.event.ContainerSpoilageHandler.registerFabricEvents();
+        etherested.spoilage.event.EntitySpoilageHandler.registerFabricEvents();
         etherested.spoilage.event.CakePlacementHandler.registerFabricEvents();
         etherested.spoilage.event.CropBonemealHandler.registerFabricEvents();
         etherested.spoilage.event.BlockSpoilageCleanupHandler.registerFabricEvents();
+        etherested.spoilage.event.ChunkSpoilageTrackingHandler.registerFabricEvents();
         etherested.spoilage.network.BlockSpoilageNetworkHandler.registerFabricEvents();
         etherested.spoilage.network.ModNetworking.registerFabric();
         etherested.spoilage.loot.ModLootFunctions.registerFabricLootModification();
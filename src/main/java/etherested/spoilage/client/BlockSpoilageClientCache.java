@@ -1,40 +1,52 @@
 package etherested.spoilage.client;
 
+import etherested.spoilage.network.BlockSpoilageCurve;
+import net.minecraft.client.Minecraft;
 import net.minecraft.core.BlockPos;
 import net.minecraft.world.level.ChunkPos;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 // client-side cache for block spoilage data;
-// stores spoilage percentages received from the server for rendering purposes
+// stores spoilage received from the server for rendering purposes,
+// either as fixed percentages or as curves evaluated at the current client game time
 public class BlockSpoilageClientCache {
 
-    // map of block position to spoilage percentage (0.0 to 1.0)
-    private static final Map<BlockPos, Float> CACHE = new ConcurrentHashMap<>();
+    // map of block position to spoilage curve (fixed percentages are constant curves)
+    private static final Map<BlockPos, BlockSpoilageCurve> CACHE = new ConcurrentHashMap<>();
 
     // gets the spoilage percentage for a block position
     // @param pos the block position
     // @return the spoilage percentage (0.0 to 1.0), or 0.0 if not cached
     public static float getSpoilage(BlockPos pos) {
-        return CACHE.getOrDefault(pos, 0.0f);
+        BlockSpoilageCurve curve = CACHE.get(pos);
+        return curve != null ? curve.valueAt(getGameTime()) : 0.0f;
     }
 
     // checks if a block position has cached spoilage data
     // @param pos the block position
     // @return true if spoilage data exists for this position
     public static boolean hasSpoilage(BlockPos pos) {
-        return CACHE.containsKey(pos);
+        return getSpoilage(pos) > 0.0f;
     }
 
     // updates the spoilage value for a block position
     // @param pos the block position
     // @param spoilage the spoilage percentage (0.0 to 1.0)
     public static void updateSpoilage(BlockPos pos, float spoilage) {
-        if (spoilage <= 0.0f) {
+        updateCurve(pos, BlockSpoilageCurve.constant(spoilage));
+    }
+
+    // updates the spoilage curve for a block position
+    // @param pos the block position
+    // @param curve the spoilage over game time
+    public static void updateCurve(BlockPos pos, BlockSpoilageCurve curve) {
+        if (curve.isNeverShown()) {
             CACHE.remove(pos);
         } else {
-            CACHE.put(pos.immutable(), spoilage);
+            CACHE.put(pos.immutable(), curve);
         }
     }
 
@@ -64,11 +76,19 @@ public class BlockSpoilageClientCache {
         CACHE.clear();
     }
 
-    // gets all cached block positions with spoilage data;
+    // gets all cached block positions with spoilage currently shown;
     // used by the block renderer to find blocks that need visual effects
-    // @return unmodifiable view of the cache
+    // @return snapshot of the current spoilage percentages
     public static Map<BlockPos, Float> getAll() {
-        return Map.copyOf(CACHE);
+        long gameTime = getGameTime();
+        Map<BlockPos, Float> result = new HashMap<>();
+        for (Map.Entry<BlockPos, BlockSpoilageCurve> entry : CACHE.entrySet()) {
+            float spoilage = entry.getValue().valueAt(gameTime);
+            if (spoilage > 0.0f) {
+                result.put(entry.getKey(), spoilage);
+            }
+        }
+        return result;
     }
 
     // gets the number of cached entries
@@ -76,4 +96,10 @@ public class BlockSpoilageClientCache {
     public static int size() {
         return CACHE.size();
     }
+
+    // the client's game time, which follows the server's
+    private static long getGameTime() {
+        Minecraft minecraft = Minecraft.getInstance();
+        return minecraft.level != null ? minecraft.level.getGameTime() : 0L;
+    }
 }
@@ -147,8 +147,8 @@ public class SpoilageTooltipHandler {
         long lifetime = SpoilageCalculator.getLifetime(stack);
         long elapsed = (long) ((worldTime - data.creationTime()) * data.preservationMultiplier() * SpoilageConfig.getGlobalSpeedMultiplier());
 
-        // use already accumulated savings
-        long totalSavings = data.yLevelSavedTicks();
+        // use already accumulated savings, including an open container rate segment
+        long totalSavings = SpoilageCalculator.getTotalSavings(data, worldTime);
 
         // calculate remaining lifetime ticks
         long effectiveElapsed = elapsed - totalSavings;
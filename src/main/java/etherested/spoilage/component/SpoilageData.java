@@ -15,6 +15,8 @@ import net.minecraft.network.codec.StreamCodec;
 // @param lastYLevelProcessTick world tick when Y-level processing last occurred
 // @param currentContainerYMultiplier current preservation multiplier while in container (1.0 = not in container/no benefit)
 // @param biomeMultiplier current biome-based multiplier (1.0 = normal, < 1.0 = cold, > 1.0 = hot)
+// @param rateSegmentStart world tick when the current container rate segment started (-1 = no open segment);
+//        while open, savings accrue analytically at currentContainerYMultiplier instead of being added periodically
 public record SpoilageData(
         long creationTime,
         long remainingLifetime,
@@ -23,13 +25,18 @@ public record SpoilageData(
         long yLevelSavedTicks,
         long lastYLevelProcessTick,
         float currentContainerYMultiplier,
-        float biomeMultiplier
+        float biomeMultiplier,
+        long rateSegmentStart
 ) {
     public static final long UNINITIALIZED = -1L;
     public static final long NOT_PAUSED = -1L;
+    public static final long NO_SEGMENT = -1L;
 
     public static final SpoilageData DEFAULT = new SpoilageData(UNINITIALIZED, NOT_PAUSED, false, 1.0f, 0L, 0L, 1.0f, 1.0f);
 
+    // the values are immutable, so stacks initialized in the same tick (loot, crafting, pickups) share one
+    private static volatile SpoilageData lastInitialized = DEFAULT;
+
     public static final Codec<SpoilageData> CODEC = RecordCodecBuilder.create(instance -> instance.group(
             Codec.LONG.fieldOf("creation_time").forGetter(SpoilageData::creationTime),
             Codec.LONG.fieldOf("remaining_lifetime").forGetter(SpoilageData::remainingLifetime),
@@ -38,7 +45,8 @@ public record SpoilageData(
             Codec.LONG.optionalFieldOf("y_level_saved_ticks", 0L).forGetter(SpoilageData::yLevelSavedTicks),
             Codec.LONG.optionalFieldOf("last_y_level_process_tick", 0L).forGetter(SpoilageData::lastYLevelProcessTick),
             Codec.FLOAT.optionalFieldOf("current_container_y_multiplier", 1.0f).forGetter(SpoilageData::currentContainerYMultiplier),
-            Codec.FLOAT.optionalFieldOf("biome_multiplier", 1.0f).forGetter(SpoilageData::biomeMultiplier)
+            Codec.FLOAT.optionalFieldOf("biome_multiplier", 1.0f).forGetter(SpoilageData::biomeMultiplier),
+            Codec.LONG.optionalFieldOf("rate_segment_start", NO_SEGMENT).forGetter(SpoilageData::rateSegmentStart)
     ).apply(instance, SpoilageData::new));
 
     public static final StreamCodec<ByteBuf, SpoilageData> STREAM_CODEC = new StreamCodec<>() {
@@ -52,8 +60,10 @@ public record SpoilageData(
             long lastYLevelProcessTick = ByteBufCodecs.VAR_LONG.decode(buf);
             float currentContainerYMultiplier = ByteBufCodecs.FLOAT.decode(buf);
             float biomeMultiplier = ByteBufCodecs.FLOAT.decode(buf);
+            // sent offset by one so the common "no segment" value fits in a single byte
+            long rateSegmentStart = ByteBufCodecs.VAR_LONG.decode(buf) - 1;
             return new SpoilageData(creationTime, remainingLifetime, isPaused, preservationMultiplier,
-                    yLevelSavedTicks, lastYLevelProcessTick, currentContainerYMultiplier, biomeMultiplier);
+                    yLevelSavedTicks, lastYLevelProcessTick, currentContainerYMultiplier, biomeMultiplier, rateSegmentStart);
         }
 
         @Override
@@ -66,55 +76,119 @@ public record SpoilageData(
             ByteBufCodecs.VAR_LONG.encode(buf, data.lastYLevelProcessTick());
             ByteBufCodecs.FLOAT.encode(buf, data.currentContainerYMultiplier());
             ByteBufCodecs.FLOAT.encode(buf, data.biomeMultiplier());
+            ByteBufCodecs.VAR_LONG.encode(buf, data.rateSegmentStart() + 1);
         }
     };
 
+    // creates spoilage data without an open rate segment
+    public SpoilageData(long creationTime, long remainingLifetime, boolean isPaused, float preservationMultiplier,
+                        long yLevelSavedTicks, long lastYLevelProcessTick, float currentContainerYMultiplier,
+                        float biomeMultiplier) {
+        this(creationTime, remainingLifetime, isPaused, preservationMultiplier, yLevelSavedTicks,
+                lastYLevelProcessTick, currentContainerYMultiplier, biomeMultiplier, NO_SEGMENT);
+    }
+
     public boolean isInitialized() {
         return creationTime != UNINITIALIZED;
     }
 
     public SpoilageData initialize(long worldTime) {
-        return new SpoilageData(worldTime, NOT_PAUSED, false, 1.0f, 0L, 0L, 1.0f, 1.0f);
+        return fresh(worldTime);
+    }
+
+    // gets fresh spoilage data created at a world tick, shared with other stacks initialized in that tick
+    public static SpoilageData fresh(long worldTime) {
+        SpoilageData cached = lastInitialized;
+        if (cached.creationTime == worldTime) {
+            return cached;
+        }
+        SpoilageData created = new SpoilageData(worldTime, NOT_PAUSED, false, 1.0f, 0L, 0L, 1.0f, 1.0f);
+        lastInitialized = created;
+        return created;
     }
 
     public SpoilageData pause(long currentRemaining) {
-        return new SpoilageData(creationTime, currentRemaining, true, preservationMultiplier, yLevelSavedTicks, lastYLevelProcessTick, currentContainerYMultiplier, biomeMultiplier);
+        return new SpoilageData(creationTime, currentRemaining, true, preservationMultiplier, yLevelSavedTicks, lastYLevelProcessTick, currentContainerYMultiplier, biomeMultiplier, rateSegmentStart);
     }
 
     public SpoilageData resume(long newCreationTime) {
-        return new SpoilageData(newCreationTime, NOT_PAUSED, false, preservationMultiplier, yLevelSavedTicks, lastYLevelProcessTick, currentContainerYMultiplier, biomeMultiplier);
+        return new SpoilageData(newCreationTime, NOT_PAUSED, false, preservationMultiplier, yLevelSavedTicks, lastYLevelProcessTick, currentContainerYMultiplier, biomeMultiplier, rateSegmentStart);
     }
 
+    // the with/add/clear helpers return this when nothing would change, see SpoilageCalculator.updateData
+
     public SpoilageData withPreservationMultiplier(float multiplier) {
-        return new SpoilageData(creationTime, remainingLifetime, isPaused, multiplier, yLevelSavedTicks, lastYLevelProcessTick, currentContainerYMultiplier, biomeMultiplier);
+        if (multiplier == preservationMultiplier) return this;
+        return new SpoilageData(creationTime, remainingLifetime, isPaused, multiplier, yLevelSavedTicks, lastYLevelProcessTick, currentContainerYMultiplier, biomeMultiplier, rateSegmentStart);
     }
 
     public SpoilageData withRemainingLifetime(long remaining) {
-        return new SpoilageData(creationTime, remaining, isPaused, preservationMultiplier, yLevelSavedTicks, lastYLevelProcessTick, currentContainerYMultiplier, biomeMultiplier);
+        if (remaining == remainingLifetime) return this;
+        return new SpoilageData(creationTime, remaining, isPaused, preservationMultiplier, yLevelSavedTicks, lastYLevelProcessTick, currentContainerYMultiplier, biomeMultiplier, rateSegmentStart);
     }
 
     public SpoilageData addYLevelSavings(long ticksSaved, long currentTick) {
+        if (ticksSaved == 0 && currentTick == lastYLevelProcessTick) return this;
         return new SpoilageData(creationTime, remainingLifetime, isPaused, preservationMultiplier,
-                yLevelSavedTicks + ticksSaved, currentTick, currentContainerYMultiplier, biomeMultiplier);
+                yLevelSavedTicks + ticksSaved, currentTick, currentContainerYMultiplier, biomeMultiplier, rateSegmentStart);
     }
 
     public SpoilageData withContainerYMultiplier(float yMultiplier, long currentTick) {
+        if (yMultiplier == currentContainerYMultiplier && currentTick == lastYLevelProcessTick) return this;
         return new SpoilageData(creationTime, remainingLifetime, isPaused, preservationMultiplier,
-                yLevelSavedTicks, currentTick, yMultiplier, biomeMultiplier);
+                yLevelSavedTicks, currentTick, yMultiplier, biomeMultiplier, rateSegmentStart);
     }
 
     public SpoilageData clearContainerYMultiplier() {
+        if (currentContainerYMultiplier == 1.0f) return this;
         return new SpoilageData(creationTime, remainingLifetime, isPaused, preservationMultiplier,
-                yLevelSavedTicks, lastYLevelProcessTick, 1.0f, biomeMultiplier);
+                yLevelSavedTicks, lastYLevelProcessTick, 1.0f, biomeMultiplier, rateSegmentStart);
     }
 
     public SpoilageData withBiomeMultiplier(float biome) {
+        if (biome == biomeMultiplier) return this;
         return new SpoilageData(creationTime, remainingLifetime, isPaused, preservationMultiplier,
-                yLevelSavedTicks, lastYLevelProcessTick, currentContainerYMultiplier, biome);
+                yLevelSavedTicks, lastYLevelProcessTick, currentContainerYMultiplier, biome, rateSegmentStart);
     }
 
     public SpoilageData withContainerPreservation(float containerMultiplier, float biome, long currentTick) {
+        return withContainerSavings(0L, containerMultiplier, biome, currentTick);
+    }
+
+    // adds container savings and records the current multipliers in one step
+    public SpoilageData withContainerSavings(long ticksSaved, float containerMultiplier, float biome, long currentTick) {
+        if (ticksSaved == 0 && containerMultiplier == currentContainerYMultiplier
+                && biome == biomeMultiplier && currentTick == lastYLevelProcessTick) {
+            return this;
+        }
+        return new SpoilageData(creationTime, remainingLifetime, isPaused, preservationMultiplier,
+                yLevelSavedTicks + ticksSaved, currentTick, containerMultiplier, biome, rateSegmentStart);
+    }
+
+    public boolean hasOpenSegment() {
+        return rateSegmentStart >= 0;
+    }
+
+    // savings accrued by the open rate segment up to a world tick (negative when the rate is above 1.0)
+    public long openSegmentSavings(long worldTime) {
+        if (rateSegmentStart < 0) {
+            return 0L;
+        }
+        return (long) (Math.max(0L, worldTime - rateSegmentStart) * (1.0f - currentContainerYMultiplier));
+    }
+
+    // folds any open segment into the saved ticks and starts a new one at the given rate
+    public SpoilageData openSegment(float containerMultiplier, float biome, long currentTick) {
+        return new SpoilageData(creationTime, remainingLifetime, isPaused, preservationMultiplier,
+                yLevelSavedTicks + openSegmentSavings(currentTick), currentTick, containerMultiplier, biome, currentTick);
+    }
+
+    // folds the open segment into the saved ticks and clears the container rate
+    public SpoilageData closeSegment(long currentTick) {
+        if (rateSegmentStart < 0) {
+            return this;
+        }
         return new SpoilageData(creationTime, remainingLifetime, isPaused, preservationMultiplier,
-                yLevelSavedTicks, currentTick, containerMultiplier, biome);
+                yLevelSavedTicks + openSegmentSavings(currentTick), currentTick, 1.0f, biomeMultiplier, NO_SEGMENT);
     }
 }
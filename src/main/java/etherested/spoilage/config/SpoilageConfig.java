@@ -17,6 +17,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 // JSON-based config system for spoilage;
 // loads/saves config/spoilage.json using Gson;
@@ -29,6 +30,9 @@ public class SpoilageConfig {
 
     private static SpoilageConfig INSTANCE;
 
+    // notified after the config was loaded or saved, so derived data can be rebuilt
+    private static final List<Runnable> CHANGE_LISTENERS = new CopyOnWriteArrayList<>();
+
     // general settings
     private boolean enabled = true;
     private double globalSpeedMultiplier = 1.0;
@@ -79,6 +83,7 @@ public class SpoilageConfig {
             "minecraft:barrel;0.9",
             "minecraft:chest;0.95"
     ));
+    private double nestedContainerMultiplier = 1.0;
 
     // crop lifecycle settings
     private int cropFreshPeriodTicks = 72000;
@@ -89,6 +94,15 @@ public class SpoilageConfig {
     private boolean staleSeedGrowthPenalty = true;
     private int staleSeedRecoveryTicks = 48000;
 
+    // performance settings
+    private boolean lazyContainerPreservation = false;
+    // time per server tick for queued spoilage work (in microseconds), 0 = no limit
+    private int tickBudgetMicros = 0;
+    private boolean asyncContainerProcessing = false;
+    private boolean hopperSpoilageMerging = false;
+    private boolean blockSpoilageExtrapolation = false;
+    private int creationTimeQuantizationTicks = 0;
+
     private SpoilageConfig() {}
 
     // loads config from disk or creates defaults
@@ -127,6 +141,16 @@ public class SpoilageConfig {
         } catch (IOException e) {
             LOGGER.error("failed to save spoilage config: {}", e.getMessage());
         }
+
+        // save() follows every change, both from load() and from the config screen
+        for (Runnable listener : CHANGE_LISTENERS) {
+            listener.run();
+        }
+    }
+
+    // registers a callback run whenever config values may have changed
+    public static void addChangeListener(Runnable listener) {
+        CHANGE_LISTENERS.add(listener);
     }
 
     // gets the config instance, loading if needed
@@ -155,6 +179,7 @@ public class SpoilageConfig {
 
         contaminationMultiplierPerSlot = clamp(contaminationMultiplierPerSlot, 0.01, 1.0);
         contaminationMaxMultiplier = clamp(contaminationMaxMultiplier, 1.0, 10.0);
+        nestedContainerMultiplier = clamp(nestedContainerMultiplier, 0.01, 1.0);
 
         cropFreshPeriodTicks = clamp(cropFreshPeriodTicks, 0, 1728000);
         cropRotPeriodTicks = clamp(cropRotPeriodTicks, 1, 1728000);
@@ -163,6 +188,9 @@ public class SpoilageConfig {
 
         blendStartThreshold = clamp(blendStartThreshold, 0.0, 1.0);
         blendFullThreshold = clamp(blendFullThreshold, 0.0, 1.0);
+
+        tickBudgetMicros = clamp(tickBudgetMicros, 0, 50000);
+        creationTimeQuantizationTicks = clamp(creationTimeQuantizationTicks, 0, 24000);
     }
 
     private JsonObject serialize() {
@@ -215,6 +243,7 @@ public class SpoilageConfig {
             rates.add(rate);
         }
         gameplay.add("containerSpoilageRates", rates);
+        gameplay.addProperty("nestedContainerMultiplier", nestedContainerMultiplier);
 
         root.add("gameplay", gameplay);
 
@@ -245,6 +274,16 @@ public class SpoilageConfig {
         visual.addProperty("blendFullThreshold", blendFullThreshold);
         root.add("visual", visual);
 
+        // performance
+        JsonObject performance = new JsonObject();
+        performance.addProperty("lazyContainerPreservation", lazyContainerPreservation);
+        performance.addProperty("tickBudgetMicros", tickBudgetMicros);
+        performance.addProperty("asyncContainerProcessing", asyncContainerProcessing);
+        performance.addProperty("hopperSpoilageMerging", hopperSpoilageMerging);
+        performance.addProperty("blockSpoilageExtrapolation", blockSpoilageExtrapolation);
+        performance.addProperty("creationTimeQuantizationTicks", creationTimeQuantizationTicks);
+        root.add("performance", performance);
+
         return root;
     }
 
@@ -303,6 +342,7 @@ public class SpoilageConfig {
                     }
                 }
             }
+            nestedContainerMultiplier = getDouble(gameplay, "nestedContainerMultiplier", nestedContainerMultiplier);
         }
 
         // crops
@@ -334,6 +374,17 @@ public class SpoilageConfig {
             blendStartThreshold = getDouble(visual, "blendStartThreshold", blendStartThreshold);
             blendFullThreshold = getDouble(visual, "blendFullThreshold", blendFullThreshold);
         }
+
+        // performance
+        JsonObject performance = getObject(root, "performance");
+        if (performance != null) {
+            lazyContainerPreservation = getBool(performance, "lazyContainerPreservation", lazyContainerPreservation);
+            tickBudgetMicros = getInt(performance, "tickBudgetMicros", tickBudgetMicros);
+            asyncContainerProcessing = getBool(performance, "asyncContainerProcessing", asyncContainerProcessing);
+            hopperSpoilageMerging = getBool(performance, "hopperSpoilageMerging", hopperSpoilageMerging);
+            blockSpoilageExtrapolation = getBool(performance, "blockSpoilageExtrapolation", blockSpoilageExtrapolation);
+            creationTimeQuantizationTicks = getInt(performance, "creationTimeQuantizationTicks", creationTimeQuantizationTicks);
+        }
     }
 
     // STATIC GETTERS (API surface stays identical)
@@ -374,6 +425,7 @@ public class SpoilageConfig {
 
     // container getters
     public static List<String> getContainerSpoilageRates() { return List.copyOf(get().containerSpoilageRates); }
+    public static float getNestedContainerMultiplier() { return (float) get().nestedContainerMultiplier; }
 
     // tooltip getters
     public static boolean showRemainingTime() { return get().showRemainingTime; }
@@ -396,6 +448,14 @@ public class SpoilageConfig {
     public static boolean isStaleSeedGrowthPenaltyEnabled() { return get().staleSeedGrowthPenalty; }
     public static int getStaleSeedRecoveryTicks() { return get().staleSeedRecoveryTicks; }
 
+    // performance getters
+    public static boolean isLazyContainerPreservationEnabled() { return get().lazyContainerPreservation; }
+    public static int getTickBudgetMicros() { return get().tickBudgetMicros; }
+    public static boolean isAsyncContainerProcessingEnabled() { return get().asyncContainerProcessing; }
+    public static boolean isHopperSpoilageMergingEnabled() { return get().hopperSpoilageMerging; }
+    public static boolean isBlockSpoilageExtrapolationEnabled() { return get().blockSpoilageExtrapolation; }
+    public static int getCreationTimeQuantizationTicks() { return get().creationTimeQuantizationTicks; }
+
     // MUTABLE INSTANCE ACCESS FOR CONFIG SCREEN
 
     // gets the mutable config instance for use by config screens
@@ -434,6 +494,7 @@ public class SpoilageConfig {
     public void setContaminationEnabled(boolean v) { contaminationEnabled = v; }
     public void setContaminationMultiplierPerSlot(double v) { contaminationMultiplierPerSlot = v; }
     public void setContaminationMaxMultiplier(double v) { contaminationMaxMultiplier = v; }
+    public void setNestedContainerMultiplier(double v) { nestedContainerMultiplier = v; }
     public void setCropFreshPeriodTicks(int v) { cropFreshPeriodTicks = v; }
     public void setCropRotPeriodTicks(int v) { cropRotPeriodTicks = v; }
     public void setCropMinimumHarvestStage(int v) { cropMinimumHarvestStage = v; }
@@ -441,6 +502,12 @@ public class SpoilageConfig {
     public void setBonemealBlockedOnRotten(boolean v) { bonemealBlockedOnRotten = v; }
     public void setStaleSeedGrowthPenalty(boolean v) { staleSeedGrowthPenalty = v; }
     public void setStaleSeedRecoveryTicks(int v) { staleSeedRecoveryTicks = v; }
+    public void setLazyContainerPreservation(boolean v) { lazyContainerPreservation = v; }
+    public void setTickBudgetMicros(int v) { tickBudgetMicros = v; }
+    public void setAsyncContainerProcessing(boolean v) { asyncContainerProcessing = v; }
+    public void setHopperSpoilageMerging(boolean v) { hopperSpoilageMerging = v; }
+    public void setBlockSpoilageExtrapolation(boolean v) { blockSpoilageExtrapolation = v; }
+    public void setCreationTimeQuantizationTicks(int v) { creationTimeQuantizationTicks = v; }
 
     // JSON HELPERS
 
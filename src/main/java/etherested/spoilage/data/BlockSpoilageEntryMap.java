@@ -0,0 +1,241 @@
+package etherested.spoilage.data;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+// open-addressing map from BlockPos.asLong() to block spoilage entries;
+// values are kept in parallel primitive columns instead of entry objects,
+// so lookups and in-place updates on the random-tick path allocate nothing;
+// uses linear probing with backward-shift deletion
+public class BlockSpoilageEntryMap {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    // flags column layout: bit 7 = slot occupied, bit 3 = paused, bits 0-2 = BlockType ordinal
+    private static final byte FLAG_OCCUPIED = (byte) 0x80;
+    private static final byte FLAG_PAUSED = 0x08;
+    private static final byte TYPE_MASK = 0x07;
+
+    private static final ChunkSpoilageData.BlockType[] TYPES = ChunkSpoilageData.BlockType.values();
+
+    private long[] keys;
+    private long[] creationTimes;
+    private float[] initialSpoilages;
+    private byte[] flags;
+    private long[] fullyGrownTimes;
+
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+
+    public BlockSpoilageEntryMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public BlockSpoilageEntryMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // gets the slot holding a position, or -1 if the position is not tracked
+    public int indexOf(long pos) {
+        int slot = (int) HashCommon.mix(pos) & mask;
+        while (flags[slot] != 0) {
+            if (keys[slot] == pos) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    public boolean containsKey(long pos) {
+        return indexOf(pos) >= 0;
+    }
+
+    // gets the entry for a position as a record, or null if not tracked
+    @Nullable
+    public ChunkSpoilageData.BlockSpoilageEntry get(long pos) {
+        int slot = indexOf(pos);
+        return slot >= 0 ? entryAt(slot) : null;
+    }
+
+    public void put(long pos, ChunkSpoilageData.BlockSpoilageEntry entry) {
+        put(pos, entry.creationTime(), entry.initialSpoilage(), entry.isPaused(), entry.type(), entry.fullyGrownTime());
+    }
+
+    // stores an entry from its individual fields, replacing any existing entry for the position
+    public void put(long pos, long creationTime, float initialSpoilage, boolean paused,
+                    ChunkSpoilageData.BlockType type, long fullyGrownTime) {
+        int slot = (int) HashCommon.mix(pos) & mask;
+        while (flags[slot] != 0) {
+            if (keys[slot] == pos) {
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        boolean inserted = flags[slot] == 0;
+        keys[slot] = pos;
+        creationTimes[slot] = creationTime;
+        initialSpoilages[slot] = initialSpoilage;
+        flags[slot] = packFlags(paused, type);
+        fullyGrownTimes[slot] = fullyGrownTime;
+
+        if (inserted && ++size > resizeThreshold) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    // removes the entry for a position, returns true if one was present
+    public boolean remove(long pos) {
+        int slot = indexOf(pos);
+        if (slot < 0) {
+            return false;
+        }
+        removeAt(slot);
+        return true;
+    }
+
+    // grows the table up front so a known number of entries can be added without rehashing
+    public void ensureCapacity(int expectedSize) {
+        int capacity = tableSizeFor(expectedSize);
+        if (capacity > keys.length) {
+            rehash(capacity);
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(flags, (byte) 0);
+        size = 0;
+    }
+
+    // ─── slot access ───
+
+    // gets the first occupied slot at or after the given slot, or -1 when there are none;
+    // iterate with: for (int s = map.nextSlot(0); s >= 0; s = map.nextSlot(s + 1))
+    public int nextSlot(int from) {
+        for (int slot = from; slot < flags.length; slot++) {
+            if (flags[slot] != 0) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    public long keyAt(int slot) {
+        return keys[slot];
+    }
+
+    public long creationTimeAt(int slot) {
+        return creationTimes[slot];
+    }
+
+    public float initialSpoilageAt(int slot) {
+        return initialSpoilages[slot];
+    }
+
+    public boolean isPausedAt(int slot) {
+        return (flags[slot] & FLAG_PAUSED) != 0;
+    }
+
+    public ChunkSpoilageData.BlockType typeAt(int slot) {
+        return TYPES[flags[slot] & TYPE_MASK];
+    }
+
+    public long fullyGrownTimeAt(int slot) {
+        return fullyGrownTimes[slot];
+    }
+
+    public ChunkSpoilageData.BlockSpoilageEntry entryAt(int slot) {
+        return new ChunkSpoilageData.BlockSpoilageEntry(
+                creationTimes[slot],
+                initialSpoilages[slot],
+                isPausedAt(slot),
+                typeAt(slot),
+                fullyGrownTimes[slot]
+        );
+    }
+
+    public void setInitialSpoilageAt(int slot, float initialSpoilage) {
+        initialSpoilages[slot] = initialSpoilage;
+    }
+
+    // ─── internals ───
+
+    private static byte packFlags(boolean paused, ChunkSpoilageData.BlockType type) {
+        return (byte) (FLAG_OCCUPIED | (paused ? FLAG_PAUSED : 0) | type.ordinal());
+    }
+
+    private void removeAt(int slot) {
+        size--;
+
+        // shift following entries of the probe chain back so lookups never hit a gap
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (flags[next] != 0) {
+            int home = (int) HashCommon.mix(keys[next]) & mask;
+            // move the entry if its home slot is not cyclically between the gap and its current slot
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                creationTimes[gap] = creationTimes[next];
+                initialSpoilages[gap] = initialSpoilages[next];
+                flags[gap] = flags[next];
+                fullyGrownTimes[gap] = fullyGrownTimes[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        flags[gap] = 0;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        creationTimes = new long[capacity];
+        initialSpoilages = new float[capacity];
+        flags = new byte[capacity];
+        fullyGrownTimes = new long[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        long[] oldCreationTimes = creationTimes;
+        float[] oldInitialSpoilages = initialSpoilages;
+        byte[] oldFlags = flags;
+        long[] oldFullyGrownTimes = fullyGrownTimes;
+
+        allocate(newCapacity);
+
+        for (int i = 0; i < oldFlags.length; i++) {
+            if (oldFlags[i] == 0) {
+                continue;
+            }
+            int slot = (int) HashCommon.mix(oldKeys[i]) & mask;
+            while (flags[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            creationTimes[slot] = oldCreationTimes[i];
+            initialSpoilages[slot] = oldInitialSpoilages[i];
+            flags[slot] = oldFlags[i];
+            fullyGrownTimes[slot] = oldFullyGrownTimes[i];
+        }
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int needed = (int) Math.ceil(Math.max(expectedSize, 1) / LOAD_FACTOR);
+        return Math.max(MIN_CAPACITY, HashCommon.nextPowerOfTwo(needed));
+    }
+}
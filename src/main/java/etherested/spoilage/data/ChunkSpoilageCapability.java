@@ -1,21 +1,154 @@
 package etherested.spoilage.data;
 
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMaps;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceKey;
 import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.Level;
+import net.minecraft.world.level.chunk.LevelChunk;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
 
 // utility class for accessing chunk-level spoilage data;
-// provides methods for storing and retrieving block spoilage data
+// provides methods for storing and retrieving block spoilage data;
+// data lives on each chunk, this class keeps an index of the loaded chunks that have any
 public class ChunkSpoilageCapability {
 
-    private static final String DATA_NAME = "spoilage_block_data";
+    // loaded chunks with spoilage data, per dimension, keyed by ChunkPos.toLong()
+    private static final Map<ResourceKey<Level>, Long2ObjectMap<ChunkSpoilageData>> LOADED_CHUNKS = new HashMap<>();
+
+    // legacy level-wide data per dimension, drained as chunks load
+    private static final Map<ResourceKey<Level>, LegacyBlockSpoilageData> LEGACY_DATA = new HashMap<>();
+
+    private static Long2ObjectMap<ChunkSpoilageData> getLoadedChunks(ServerLevel level) {
+        return LOADED_CHUNKS.computeIfAbsent(level.dimension(), k -> new Long2ObjectOpenHashMap<>());
+    }
+
+    // gets the spoilage data of every loaded chunk that has tracked blocks in a level;
+    // keyed by ChunkPos.toLong(), do not modify while iterating
+    public static Long2ObjectMap<ChunkSpoilageData> getLoadedChunkData(ServerLevel level) {
+        Long2ObjectMap<ChunkSpoilageData> loaded = LOADED_CHUNKS.get(level.dimension());
+        return loaded != null ? loaded : Long2ObjectMaps.emptyMap();
+    }
+
+    // gets the spoilage data for a loaded chunk, or null if it has no tracked blocks
+    @Nullable
+    public static ChunkSpoilageData getChunkData(ServerLevel level, ChunkPos chunkPos) {
+        return getLoadedChunkData(level).get(chunkPos.toLong());
+    }
+
+    // gets the spoilage data for the chunk containing a position, or null if it has none
+    @Nullable
+    private static ChunkSpoilageData getChunkData(ServerLevel level, BlockPos pos) {
+        return getLoadedChunkData(level).get(ChunkPos.asLong(pos));
+    }
+
+    // gets the spoilage data for the chunk containing a position, attaching it if needed;
+    // returns null if the chunk is not loaded, it is never loaded or generated just to store an entry
+    @Nullable
+    private static ChunkSpoilageData getOrCreateChunkData(ServerLevel level, BlockPos pos) {
+        Long2ObjectMap<ChunkSpoilageData> loaded = getLoadedChunks(level);
+        long chunkKey = ChunkPos.asLong(pos);
+        ChunkSpoilageData data = loaded.get(chunkKey);
+        if (data == null) {
+            LevelChunk chunk = level.getChunkSource().getChunkNow(pos.getX() >> 4, pos.getZ() >> 4);
+            if (chunk == null) {
+                return null;
+            }
+            data = ModAttachments.getOrCreateChunkData(chunk);
+            data.bind(chunk);
+            loaded.put(chunkKey, data);
+        }
+        return data;
+    }
+
+    // detaches chunk data once its last entry is removed so empty chunks are not indexed or saved
+    private static void releaseIfEmpty(ServerLevel level, BlockPos pos, ChunkSpoilageData data) {
+        if (!data.isEmpty()) {
+            return;
+        }
+
+        getLoadedChunks(level).remove(ChunkPos.asLong(pos));
+        LevelChunk chunk = level.getChunkSource().getChunkNow(pos.getX() >> 4, pos.getZ() >> 4);
+        if (chunk != null) {
+            ModAttachments.removeChunkData(chunk);
+        }
+    }
+
+    // indexes a chunk's spoilage data when it loads, migrating any legacy level-wide entries into it
+    public static void onChunkLoad(ServerLevel level, LevelChunk chunk) {
+        ChunkSpoilageData data = ModAttachments.getChunkData(chunk);
+
+        ChunkSpoilageData legacy = drainLegacyChunk(level, chunk.getPos());
+        if (legacy != null && !legacy.isEmpty()) {
+            if (data == null) {
+                data = legacy;
+                ModAttachments.setChunkData(chunk, data);
+            } else {
+                data.putAll(legacy);
+            }
+        }
+
+        if (data == null) {
+            return;
+        }
+
+        if (data.isEmpty()) {
+            ModAttachments.removeChunkData(chunk);
+            return;
+        }
+
+        data.bind(chunk);
+        if (legacy != null) {
+            data.setDirty();
+        }
+        getLoadedChunks(level).put(chunk.getPos().toLong(), data);
+    }
+
+    // drops a chunk from the index when it unloads; its data is saved with the chunk
+    public static void onChunkUnload(ServerLevel level, LevelChunk chunk) {
+        Long2ObjectMap<ChunkSpoilageData> loaded = LOADED_CHUNKS.get(level.dimension());
+        if (loaded == null) {
+            return;
+        }
+
+        ChunkSpoilageData data = loaded.remove(chunk.getPos().toLong());
+        if (data != null) {
+            data.bind(null);
+        }
+    }
 
-    // gets the spoilage data for a level, creating it if it doesn't exist
-    public static ChunkSpoilageData getData(ServerLevel level) {
-        return level.getDataStorage().computeIfAbsent(
-                ChunkSpoilageData.factory(),
-                DATA_NAME
-        );
+    // forgets all indexed chunks of a level when it unloads
+    public static void onLevelUnload(ServerLevel level) {
+        LOADED_CHUNKS.remove(level.dimension());
+        LEGACY_DATA.remove(level.dimension());
+    }
+
+    // takes the entries of a chunk out of the legacy level-wide data, if any is left
+    @Nullable
+    private static ChunkSpoilageData drainLegacyChunk(ServerLevel level, ChunkPos chunkPos) {
+        LegacyBlockSpoilageData legacy = LEGACY_DATA.computeIfAbsent(level.dimension(), k -> {
+            LegacyBlockSpoilageData stored = level.getDataStorage().get(
+                    LegacyBlockSpoilageData.factory(),
+                    LegacyBlockSpoilageData.DATA_NAME
+            );
+            if (stored != null && stored.isEmpty()) {
+                // fully migrated in an earlier session, whose chunk saves hold the entries now
+                LegacyBlockSpoilageData.deleteFile(level);
+            }
+            // an empty placeholder avoids looking for the file again on every chunk load
+            return stored != null ? stored : new LegacyBlockSpoilageData();
+        });
+
+        if (legacy.isEmpty()) {
+            return null;
+        }
+        return legacy.drainChunk(chunkPos);
     }
 
     // sets spoilage data for a block position
@@ -24,8 +157,10 @@ public class ChunkSpoilageCapability {
             return;
         }
 
-        ChunkSpoilageData data = getData(serverLevel);
-        data.setEntry(pos, entry);
+        ChunkSpoilageData data = getOrCreateChunkData(serverLevel, pos);
+        if (data != null) {
+            data.setEntry(pos, entry);
+        }
     }
 
     // gets spoilage data for a block position
@@ -34,8 +169,8 @@ public class ChunkSpoilageCapability {
             return null;
         }
 
-        ChunkSpoilageData data = getData(serverLevel);
-        return data.getEntry(pos);
+        ChunkSpoilageData data = getChunkData(serverLevel, pos);
+        return data != null ? data.getEntry(pos) : null;
     }
 
     // removes spoilage data for a block position
@@ -44,8 +179,11 @@ public class ChunkSpoilageCapability {
             return;
         }
 
-        ChunkSpoilageData data = getData(serverLevel);
-        data.removeEntry(pos);
+        ChunkSpoilageData data = getChunkData(serverLevel, pos);
+        if (data != null) {
+            data.removeEntry(pos);
+            releaseIfEmpty(serverLevel, pos, data);
+        }
     }
 
     // checks if a block position has spoilage data
@@ -54,8 +192,8 @@ public class ChunkSpoilageCapability {
             return false;
         }
 
-        ChunkSpoilageData data = getData(serverLevel);
-        return data.hasEntry(pos);
+        ChunkSpoilageData data = getChunkData(serverLevel, pos);
+        return data != null && data.hasEntry(pos);
     }
 
     // creates a new entry for a placed spoilable block (starts fresh);
@@ -75,8 +213,10 @@ public class ChunkSpoilageCapability {
         ChunkSpoilageData.BlockSpoilageEntry entry =
                 ChunkSpoilageData.BlockSpoilageEntry.createWithSpoilage(worldTime, initialSpoilage, ChunkSpoilageData.BlockType.BLOCK);
 
-        ChunkSpoilageData data = getData(serverLevel);
-        data.setEntry(pos, entry);
+        ChunkSpoilageData data = getOrCreateChunkData(serverLevel, pos);
+        if (data != null) {
+            data.setEntry(pos, entry);
+        }
     }
 
     // updates the spoilage value for a growing crop;
@@ -86,23 +226,49 @@ public class ChunkSpoilageCapability {
             return;
         }
 
-        ChunkSpoilageData data = getData(serverLevel);
-        ChunkSpoilageData.BlockSpoilageEntry existing = data.getEntry(pos);
-        if (existing == null) {
+        ChunkSpoilageData data = getChunkData(serverLevel, pos);
+        int slot = data != null ? data.indexOf(pos) : -1;
+        if (slot < 0) {
             return;
         }
 
-        // create updated entry with new spoilage value
-        ChunkSpoilageData.BlockSpoilageEntry updated =
-                new ChunkSpoilageData.BlockSpoilageEntry(
-                        existing.creationTime(),
-                        newSpoilage,
-                        existing.isPaused(),
-                        existing.type(),
-                        existing.fullyGrownTime()
-                );
+        // update in place, this runs on the crop random tick path
+        data.getEntries().setInitialSpoilageAt(slot, newSpoilage);
+        data.setDirty();
+    }
+
+    // gets the recovering spoilage of a growing crop planted from stale seeds;
+    // returns -1 if the position is not a growing crop with seed spoilage
+    public static float getRecoveringCropSpoilage(Level level, BlockPos pos, long recoveryPeriod) {
+        if (!(level instanceof ServerLevel serverLevel)) {
+            return -1.0f;
+        }
+
+        ChunkSpoilageData data = getChunkData(serverLevel, pos);
+        int slot = data != null ? data.indexOf(pos) : -1;
+        if (slot < 0) {
+            return -1.0f;
+        }
+
+        BlockSpoilageEntryMap entries = data.getEntries();
+        float initialSpoilage = entries.initialSpoilageAt(slot);
+        if (entries.typeAt(slot) != ChunkSpoilageData.BlockType.CROP || initialSpoilage <= 0) {
+            return -1.0f;
+        }
 
-        data.setEntry(pos, updated);
+        return ChunkSpoilageData.BlockSpoilageEntry.recoveringSpoilage(
+                entries.creationTimeAt(slot), initialSpoilage, level.getGameTime(), recoveryPeriod);
+    }
+
+    // checks if a crop position has been marked as fully grown
+    public static boolean isCropFullyGrown(Level level, BlockPos pos) {
+        if (!(level instanceof ServerLevel serverLevel)) {
+            return false;
+        }
+
+        ChunkSpoilageData data = getChunkData(serverLevel, pos);
+        int slot = data != null ? data.indexOf(pos) : -1;
+        return slot >= 0 && data.getEntries().fullyGrownTimeAt(slot) >= 0;
     }
 
     // gets the current spoilage percentage for a block
@@ -111,15 +277,17 @@ public class ChunkSpoilageCapability {
             return 0.0f;
         }
 
-        ChunkSpoilageData data = getData(serverLevel);
-        ChunkSpoilageData.BlockSpoilageEntry entry = data.getEntry(pos);
+        ChunkSpoilageData data = getChunkData(serverLevel, pos);
+        int slot = data != null ? data.indexOf(pos) : -1;
 
-        if (entry == null) {
+        if (slot < 0) {
             return 0.0f;
         }
 
+        BlockSpoilageEntryMap entries = data.getEntries();
         long worldTime = level.getGameTime();
-        return entry.getSpoilage(worldTime, lifetime);
+        return ChunkSpoilageData.BlockSpoilageEntry.spoilage(entries.creationTimeAt(slot),
+                entries.initialSpoilageAt(slot), entries.isPausedAt(slot), worldTime, lifetime);
     }
 
     // creates a tracking entry for a newly planted crop;
@@ -134,8 +302,10 @@ public class ChunkSpoilageCapability {
         ChunkSpoilageData.BlockSpoilageEntry entry =
                 ChunkSpoilageData.BlockSpoilageEntry.createGrowingCrop(worldTime, seedSpoilage);
 
-        ChunkSpoilageData data = getData(serverLevel);
-        data.setEntry(pos, entry);
+        ChunkSpoilageData data = getOrCreateChunkData(serverLevel, pos);
+        if (data != null) {
+            data.setEntry(pos, entry);
+        }
     }
 
     // marks a crop as fully grown, starting the fresh period timer;
@@ -146,17 +316,15 @@ public class ChunkSpoilageCapability {
         }
 
         long worldTime = level.getGameTime();
-        ChunkSpoilageData data = getData(serverLevel);
-        ChunkSpoilageData.BlockSpoilageEntry existing = data.getEntry(pos);
-
-        ChunkSpoilageData.BlockSpoilageEntry entry;
-        if (existing != null) {
-            entry = existing.markFullyGrown(worldTime);
-        } else {
-            entry = ChunkSpoilageData.BlockSpoilageEntry.createMatureCrop(worldTime);
+        ChunkSpoilageData data = getOrCreateChunkData(serverLevel, pos);
+        if (data == null) {
+            return;
         }
+        int slot = data.indexOf(pos);
 
-        data.setEntry(pos, entry);
+        // an existing entry keeps its planting time, see BlockSpoilageEntry.markFullyGrown
+        long creationTime = slot >= 0 ? data.getEntries().creationTimeAt(slot) : worldTime;
+        data.setEntry(pos, creationTime, 0.0f, false, ChunkSpoilageData.BlockType.MATURE_CROP, worldTime);
     }
 
     // gets the current rot progress for a fully grown crop;
@@ -166,15 +334,16 @@ public class ChunkSpoilageCapability {
             return 0.0f;
         }
 
-        ChunkSpoilageData data = getData(serverLevel);
-        ChunkSpoilageData.BlockSpoilageEntry entry = data.getEntry(pos);
+        ChunkSpoilageData data = getChunkData(serverLevel, pos);
+        int slot = data != null ? data.indexOf(pos) : -1;
 
-        if (entry == null || !entry.isFullyGrown()) {
+        if (slot < 0) {
             return 0.0f;
         }
 
         long worldTime = level.getGameTime();
-        return entry.getRotProgress(worldTime, freshPeriod, rotPeriod);
+        return ChunkSpoilageData.BlockSpoilageEntry.rotProgress(
+                data.getEntries().fullyGrownTimeAt(slot), worldTime, freshPeriod, rotPeriod);
     }
 
     // resets the fully grown time for a mature crop (e.g. when bone meal is used);
@@ -184,15 +353,15 @@ public class ChunkSpoilageCapability {
             return;
         }
 
-        ChunkSpoilageData data = getData(serverLevel);
-        ChunkSpoilageData.BlockSpoilageEntry existing = data.getEntry(pos);
+        ChunkSpoilageData data = getChunkData(serverLevel, pos);
+        int slot = data != null ? data.indexOf(pos) : -1;
 
-        if (existing == null || !existing.isFullyGrown()) {
+        if (slot < 0 || data.getEntries().fullyGrownTimeAt(slot) < 0) {
             return;
         }
 
         long worldTime = level.getGameTime();
-        ChunkSpoilageData.BlockSpoilageEntry updated = existing.resetFullyGrownTime(worldTime);
-        data.setEntry(pos, updated);
+        long creationTime = data.getEntries().creationTimeAt(slot);
+        data.setEntry(pos, creationTime, 0.0f, false, ChunkSpoilageData.BlockType.MATURE_CROP, worldTime);
     }
 }
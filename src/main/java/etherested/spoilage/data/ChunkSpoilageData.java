@@ -2,96 +2,270 @@ package etherested.spoilage.data;
 
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
+import it.unimi.dsi.fastutil.bytes.ByteArrayList;
 import net.minecraft.core.BlockPos;
-import net.minecraft.core.HolderLookup;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.ListTag;
 import net.minecraft.nbt.NbtOps;
 import net.minecraft.nbt.Tag;
-import net.minecraft.world.level.saveddata.SavedData;
+import net.minecraft.world.level.chunk.LevelChunk;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.HashMap;
-import java.util.Map;
+// stores spoilage data for the tracked blocks of a single chunk,
+// used for cakes, placed food, and growing crops;
+// attached to the chunk so entries load, unload and save together with it
+public class ChunkSpoilageData {
 
-// stores spoilage data for blocks in a chunk,
-// used for cakes, placed food, and growing crops
-public class ChunkSpoilageData extends SavedData {
+    // attachment codec, the chunk NBT is produced by save() and read back by load()
+    public static final Codec<ChunkSpoilageData> CODEC = CompoundTag.CODEC.xmap(
+            ChunkSpoilageData::load,
+            data -> data.save(new CompoundTag())
+    );
 
-    private final Map<BlockPos, BlockSpoilageEntry> entries = new HashMap<>();
+    // version of the columnar save format, written for future upgrades
+    private static final int FORMAT_VERSION = 1;
+
+    // flags column layout: bits 0-2 = BlockType ordinal, bit 3 = paused
+    private static final int FLAG_TYPE_MASK = 0x07;
+    private static final int FLAG_PAUSED = 0x08;
+
+    // keyed by BlockPos.asLong(), values stored as primitive columns
+    private final BlockSpoilageEntryMap entries = new BlockSpoilageEntryMap();
+
+    // chunk this data is attached to, used to flag it for saving on change
+    @Nullable
+    private LevelChunk chunk;
 
     public ChunkSpoilageData() {
     }
 
-    public static ChunkSpoilageData load(CompoundTag tag, HolderLookup.Provider provider) {
+    public static ChunkSpoilageData load(CompoundTag tag) {
         ChunkSpoilageData data = new ChunkSpoilageData();
 
-        if (tag.contains("entries", Tag.TAG_LIST)) {
-            ListTag list = tag.getList("entries", Tag.TAG_COMPOUND);
-            for (int i = 0; i < list.size(); i++) {
-                CompoundTag entryTag = list.getCompound(i);
-                BlockPos pos = new BlockPos(
-                        entryTag.getInt("x"),
-                        entryTag.getInt("y"),
-                        entryTag.getInt("z")
-                );
-
-                BlockSpoilageEntry entry = BlockSpoilageEntry.CODEC.parse(NbtOps.INSTANCE, entryTag)
-                        .result()
-                        .orElse(null);
-
-                if (entry != null) {
-                    data.entries.put(pos, entry);
-                }
-            }
+        if (tag.contains("positions", Tag.TAG_LONG_ARRAY)) {
+            loadColumns(data, tag);
+        } else if (tag.contains("entries", Tag.TAG_LIST)) {
+            // entry list written by older versions, re-saved in the columnar format
+            loadEntryList(data, tag);
         }
 
         return data;
     }
 
-    @Override
-    public CompoundTag save(CompoundTag tag, HolderLookup.Provider provider) {
-        ListTag list = new ListTag();
+    // reads the columnar format written by save();
+    // columns are parallel arrays indexed by entry, times are varints relative to base_tick
+    private static void loadColumns(ChunkSpoilageData data, CompoundTag tag) {
+        long[] positions = tag.getLongArray("positions");
+        long baseTick = tag.getLong("base_tick");
+        byte[] creationTimes = tag.getByteArray("creation_times");
+        int[] initialSpoilages = tag.getIntArray("initial_spoilage");
+        byte[] flags = tag.getByteArray("flags");
+        byte[] fullyGrownTimes = tag.getByteArray("fully_grown_times");
+
+        int count = Math.min(positions.length, Math.min(initialSpoilages.length, flags.length));
+        BlockType[] types = BlockType.values();
+        data.entries.ensureCapacity(count);
+
+        VarIntReader creationReader = new VarIntReader(creationTimes);
+        VarIntReader fullyGrownReader = new VarIntReader(fullyGrownTimes);
+
+        for (int i = 0; i < count; i++) {
+            if (!creationReader.hasNext() || !fullyGrownReader.hasNext()) {
+                break;
+            }
+
+            long creationTime = baseTick + creationReader.next();
+            // 0 means not fully grown, otherwise zigzag-encoded offset from base_tick plus one
+            long fullyGrownCode = fullyGrownReader.next();
+            long fullyGrownTime = fullyGrownCode == 0 ? -1L : baseTick + zigZagDecode(fullyGrownCode - 1);
+
+            int typeOrdinal = flags[i] & FLAG_TYPE_MASK;
+            if (typeOrdinal >= types.length) {
+                continue;
+            }
 
-        for (Map.Entry<BlockPos, BlockSpoilageEntry> entry : entries.entrySet()) {
-            BlockPos pos = entry.getKey();
-            BlockSpoilageEntry spoilage = entry.getValue();
+            data.entries.put(
+                    positions[i],
+                    creationTime,
+                    Float.intBitsToFloat(initialSpoilages[i]),
+                    (flags[i] & FLAG_PAUSED) != 0,
+                    types[typeOrdinal],
+                    fullyGrownTime
+            );
+        }
+    }
 
-            Tag entryTag = BlockSpoilageEntry.CODEC.encodeStart(NbtOps.INSTANCE, spoilage)
+    private static void loadEntryList(ChunkSpoilageData data, CompoundTag tag) {
+        ListTag list = tag.getList("entries", Tag.TAG_COMPOUND);
+        data.entries.ensureCapacity(list.size());
+        for (int i = 0; i < list.size(); i++) {
+            CompoundTag entryTag = list.getCompound(i);
+            long pos = BlockPos.asLong(
+                    entryTag.getInt("x"),
+                    entryTag.getInt("y"),
+                    entryTag.getInt("z")
+            );
+
+            BlockSpoilageEntry entry = BlockSpoilageEntry.CODEC.parse(NbtOps.INSTANCE, entryTag)
                     .result()
-                    .orElse(new CompoundTag());
+                    .orElse(null);
 
-            if (entryTag instanceof CompoundTag compound) {
-                compound.putInt("x", pos.getX());
-                compound.putInt("y", pos.getY());
-                compound.putInt("z", pos.getZ());
-                list.add(compound);
+            if (entry != null) {
+                data.entries.put(pos, entry);
             }
         }
+    }
+
+    // writes entries as parallel columns instead of one compound per entry;
+    // positions are packed longs, times are varints relative to the oldest creation time,
+    // and the block type and paused state share one byte
+    public CompoundTag save(CompoundTag tag) {
+        int count = entries.size();
+        long[] positions = new long[count];
+        int[] initialSpoilages = new int[count];
+        byte[] flags = new byte[count];
+
+        long baseTick = Long.MAX_VALUE;
+        for (int slot = entries.nextSlot(0); slot >= 0; slot = entries.nextSlot(slot + 1)) {
+            baseTick = Math.min(baseTick, entries.creationTimeAt(slot));
+        }
+        if (count == 0) {
+            baseTick = 0L;
+        }
+
+        ByteArrayList creationTimes = new ByteArrayList(count * 3);
+        ByteArrayList fullyGrownTimes = new ByteArrayList(count);
 
-        tag.put("entries", list);
+        int i = 0;
+        for (int slot = entries.nextSlot(0); slot >= 0; slot = entries.nextSlot(slot + 1), i++) {
+            positions[i] = entries.keyAt(slot);
+            initialSpoilages[i] = Float.floatToIntBits(entries.initialSpoilageAt(slot));
+            flags[i] = (byte) (entries.typeAt(slot).ordinal() | (entries.isPausedAt(slot) ? FLAG_PAUSED : 0));
+
+            writeVarLong(creationTimes, entries.creationTimeAt(slot) - baseTick);
+
+            long fullyGrownTime = entries.fullyGrownTimeAt(slot);
+            writeVarLong(fullyGrownTimes, fullyGrownTime < 0 ? 0L : zigZagEncode(fullyGrownTime - baseTick) + 1);
+        }
+
+        tag.putInt("format", FORMAT_VERSION);
+        tag.putLong("base_tick", baseTick);
+        tag.putLongArray("positions", positions);
+        tag.putByteArray("creation_times", creationTimes.toByteArray());
+        tag.putIntArray("initial_spoilage", initialSpoilages);
+        tag.putByteArray("flags", flags);
+        tag.putByteArray("fully_grown_times", fullyGrownTimes.toByteArray());
         return tag;
     }
 
+    // ─── varint helpers ───
+
+    private static void writeVarLong(ByteArrayList out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.add((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.add((byte) value);
+    }
+
+    private static long zigZagEncode(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long zigZagDecode(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // sequential reader over a byte array of unsigned varints
+    private static class VarIntReader {
+        private final byte[] bytes;
+        private int position;
+
+        private VarIntReader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        private boolean hasNext() {
+            return position < bytes.length;
+        }
+
+        private long next() {
+            long value = 0;
+            int shift = 0;
+            while (position < bytes.length && shift < 64) {
+                byte b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    break;
+                }
+                shift += 7;
+            }
+            return value;
+        }
+    }
+
+    // binds this data to the chunk it is attached to
+    public void bind(@Nullable LevelChunk chunk) {
+        this.chunk = chunk;
+    }
+
+    // flags the owning chunk as unsaved so only changed chunks are written
+    public void setDirty() {
+        if (chunk != null) {
+            chunk.setUnsaved(true);
+        }
+    }
+
     public void setEntry(BlockPos pos, BlockSpoilageEntry entry) {
-        entries.put(pos, entry);
+        entries.put(pos.asLong(), entry);
         setDirty();
     }
 
+    // stores an entry from its individual fields without creating an entry record
+    public void setEntry(BlockPos pos, long creationTime, float initialSpoilage, boolean paused,
+                         BlockType type, long fullyGrownTime) {
+        entries.put(pos.asLong(), creationTime, initialSpoilage, paused, type, fullyGrownTime);
+        setDirty();
+    }
+
+    @Nullable
     public BlockSpoilageEntry getEntry(BlockPos pos) {
-        return entries.get(pos);
+        return entries.get(pos.asLong());
+    }
+
+    // gets the slot of a position in getEntries(), or -1 if it is not tracked;
+    // lets hot paths read and update fields in place without allocating
+    public int indexOf(BlockPos pos) {
+        return entries.indexOf(pos.asLong());
     }
 
     public void removeEntry(BlockPos pos) {
-        if (entries.remove(pos) != null) {
+        if (entries.remove(pos.asLong())) {
             setDirty();
         }
     }
 
     public boolean hasEntry(BlockPos pos) {
-        return entries.containsKey(pos);
+        return entries.containsKey(pos.asLong());
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    // copies every entry of another chunk data into this one, replacing existing positions
+    public void putAll(ChunkSpoilageData other) {
+        BlockSpoilageEntryMap source = other.entries;
+        for (int slot = source.nextSlot(0); slot >= 0; slot = source.nextSlot(slot + 1)) {
+            entries.put(source.keyAt(slot), source.creationTimeAt(slot), source.initialSpoilageAt(slot),
+                    source.isPausedAt(slot), source.typeAt(slot), source.fullyGrownTimeAt(slot));
+        }
+        setDirty();
     }
 
-    public Map<BlockPos, BlockSpoilageEntry> getAllEntries() {
+    // gets the underlying entry map, keyed by BlockPos.asLong();
+    // modifying it directly does not flag the chunk for saving, call setDirty() afterwards
+    public BlockSpoilageEntryMap getEntries() {
         return entries;
     }
 
@@ -138,6 +312,11 @@ public class ChunkSpoilageData extends SavedData {
 
         // calculates current recovering spoilage for a growing crop with seed spoilage
         public float getRecoveringSpoilage(long worldTime, long recoveryPeriod) {
+            return recoveringSpoilage(creationTime, initialSpoilage, worldTime, recoveryPeriod);
+        }
+
+        // recovering spoilage from raw entry fields, shared with BlockSpoilageEntryMap readers
+        public static float recoveringSpoilage(long creationTime, float initialSpoilage, long worldTime, long recoveryPeriod) {
             if (initialSpoilage <= 0) return 0.0f;
             long elapsed = worldTime - creationTime;
             return Math.max(0.0f, initialSpoilage - (float) elapsed / recoveryPeriod);
@@ -145,6 +324,11 @@ public class ChunkSpoilageData extends SavedData {
 
         // calculates current spoilage percentage based on elapsed time
         public float getSpoilage(long worldTime, long lifetime) {
+            return spoilage(creationTime, initialSpoilage, isPaused, worldTime, lifetime);
+        }
+
+        // spoilage percentage from raw entry fields, shared with BlockSpoilageEntryMap readers
+        public static float spoilage(long creationTime, float initialSpoilage, boolean isPaused, long worldTime, long lifetime) {
             if (isPaused) {
                 return initialSpoilage;
             }
@@ -183,7 +367,12 @@ public class ChunkSpoilageData extends SavedData {
         // calculates the rot progress for a fully grown crop;
         // returns 0.0 during fresh period, then increases from 0.0 to 1.0 during rot period
         public float getRotProgress(long worldTime, long freshPeriod, long rotPeriod) {
-            if (!isFullyGrown()) {
+            return rotProgress(fullyGrownTime, worldTime, freshPeriod, rotPeriod);
+        }
+
+        // rot progress from raw entry fields, shared with BlockSpoilageEntryMap readers
+        public static float rotProgress(long fullyGrownTime, long worldTime, long freshPeriod, long rotPeriod) {
+            if (fullyGrownTime < 0) {
                 return 0.0f;
             }
 
@@ -211,12 +400,4 @@ public class ChunkSpoilageData extends SavedData {
         BLOCK,       // generic spoilable block (cakes, placed food, etc.)
         MATURE_CROP  // fully grown crop that can rot
     }
-
-    public static Factory<ChunkSpoilageData> factory() {
-        //? if neoforge {
-        return new Factory<>(ChunkSpoilageData::new, ChunkSpoilageData::load);
-        //?} else {
-        /*return new Factory<>(ChunkSpoilageData::new, ChunkSpoilageData::load, null);
-        *///?}
-    }
 }
@@ -0,0 +1,222 @@
+package etherested.spoilage.data;
+
+import etherested.spoilage.logic.NestedContainerSpoilage;
+import etherested.spoilage.logic.SpoilageCalculator;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMaps;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.Container;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.chunk.LevelChunk;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// index of block entity containers that may hold spoilable items, per dimension and chunk;
+// containers are added when their chunk loads with food in them or when their contents change,
+// and dropped by the periodic container pass once it finds them without food,
+// so that pass only visits containers that actually need processing
+public class ContainerSpoilageIndex {
+
+    // indexed container positions (BlockPos.asLong()), grouped by ChunkPos.toLong()
+    private static final Map<ResourceKey<Level>, Long2ObjectMap<LongSet>> CONTAINERS = new HashMap<>();
+
+    // containers whose items all carry open rate segments (lazy container preservation), per dimension;
+    // they need no processing while their preservation rate is unchanged and nothing in them reaches a threshold
+    private static final Map<ResourceKey<Level>, Long2ObjectMap<SettledState>> SETTLED = new HashMap<>();
+
+    // rotten slot count of each container from its last pass, per dimension;
+    // the contamination penalty of a pass is based on it so slots are only evaluated once per pass
+    private static final Map<ResourceKey<Level>, Long2IntMap> ROTTEN_SLOTS = new HashMap<>();
+
+    // bumped when the set of spoilable items may have changed (datapack reload);
+    // levels whose last full scan is older than this are rescanned by the container pass
+    private static int rescanGeneration;
+    private static final Map<ResourceKey<Level>, Integer> SCANNED_GENERATION = new HashMap<>();
+
+    private static Long2ObjectMap<LongSet> getChunks(ServerLevel level) {
+        return CONTAINERS.computeIfAbsent(level.dimension(), k -> new Long2ObjectOpenHashMap<>());
+    }
+
+    // gets the indexed containers of a level, keyed by ChunkPos.toLong();
+    // do not modify while iterating, use remove() after the pass instead
+    public static Long2ObjectMap<LongSet> getIndexedChunks(ServerLevel level) {
+        Long2ObjectMap<LongSet> chunks = CONTAINERS.get(level.dimension());
+        return chunks != null ? chunks : Long2ObjectMaps.emptyMap();
+    }
+
+    // called whenever a block entity reports a change; adding is cheap,
+    // the periodic pass checks the contents and drops containers without food
+    public static void onContainerChanged(ServerLevel level, BlockPos pos) {
+        unsettle(level, pos.asLong());
+        getChunks(level).computeIfAbsent(ChunkPos.asLong(pos), k -> new LongOpenHashSet()).add(pos.asLong());
+    }
+
+    // drops a container from the index
+    public static void remove(ServerLevel level, long chunkKey, long pos) {
+        unsettle(level, pos);
+        Long2IntMap rotten = ROTTEN_SLOTS.get(level.dimension());
+        if (rotten != null) {
+            rotten.remove(pos);
+        }
+
+        Long2ObjectMap<LongSet> chunks = CONTAINERS.get(level.dimension());
+        if (chunks == null) {
+            return;
+        }
+
+        LongSet positions = chunks.get(chunkKey);
+        if (positions != null && positions.remove(pos) && positions.isEmpty()) {
+            chunks.remove(chunkKey);
+        }
+    }
+
+    // drops every container of a chunk from the index
+    public static void removeChunk(ServerLevel level, long chunkKey) {
+        Long2ObjectMap<LongSet> chunks = CONTAINERS.get(level.dimension());
+        if (chunks == null) {
+            return;
+        }
+
+        LongSet positions = chunks.remove(chunkKey);
+        if (positions == null) {
+            return;
+        }
+
+        Long2ObjectMap<SettledState> settled = SETTLED.get(level.dimension());
+        Long2IntMap rotten = ROTTEN_SLOTS.get(level.dimension());
+        LongIterator iterator = positions.iterator();
+        while (iterator.hasNext()) {
+            long pos = iterator.nextLong();
+            if (settled != null) {
+                settled.remove(pos);
+            }
+            if (rotten != null) {
+                rotten.remove(pos);
+            }
+        }
+    }
+
+    // indexes the containers of a newly loaded chunk that hold spoilable items
+    public static void onChunkLoad(ServerLevel level, LevelChunk chunk) {
+        indexChunk(level, chunk);
+    }
+
+    // rebuilds the index entry of a chunk from its current block entities
+    public static void indexChunk(ServerLevel level, LevelChunk chunk) {
+        LongSet positions = null;
+
+        for (BlockEntity be : chunk.getBlockEntities().values()) {
+            if (be instanceof Container container && containsSpoilable(container)) {
+                if (positions == null) {
+                    positions = new LongOpenHashSet();
+                }
+                positions.add(be.getBlockPos().asLong());
+            }
+        }
+
+        long chunkKey = chunk.getPos().toLong();
+        if (positions != null) {
+            getChunks(level).put(chunkKey, positions);
+        } else {
+            removeChunk(level, chunkKey);
+        }
+    }
+
+    // forgets the containers of a chunk when it unloads, they are rescanned when it loads again
+    public static void onChunkUnload(ServerLevel level, LevelChunk chunk) {
+        removeChunk(level, chunk.getPos().toLong());
+    }
+
+    // forgets all indexed containers of a level when it unloads
+    public static void onLevelUnload(ServerLevel level) {
+        CONTAINERS.remove(level.dimension());
+        SETTLED.remove(level.dimension());
+        ROTTEN_SLOTS.remove(level.dimension());
+        SCANNED_GENERATION.remove(level.dimension());
+    }
+
+    // ─── settled containers ───
+
+    // checks if a container can be skipped: it was settled at the same preservation rate
+    // and none of its items has reached the next spoilage threshold yet
+    public static boolean isSettled(ServerLevel level, long pos, float rate, long worldTime) {
+        Long2ObjectMap<SettledState> settled = SETTLED.get(level.dimension());
+        SettledState state = settled != null ? settled.get(pos) : null;
+        return state != null && worldTime < state.untilTick() && Math.abs(state.rate() - rate) < 0.001f;
+    }
+
+    // marks a container as settled until the given world tick
+    public static void settle(ServerLevel level, long pos, float rate, long untilTick) {
+        SETTLED.computeIfAbsent(level.dimension(), k -> new Long2ObjectOpenHashMap<>())
+                .put(pos, new SettledState(rate, untilTick));
+    }
+
+    // clears the settled state of a container so the next pass processes it
+    public static void unsettle(ServerLevel level, long pos) {
+        Long2ObjectMap<SettledState> settled = SETTLED.get(level.dimension());
+        if (settled != null) {
+            settled.remove(pos);
+        }
+    }
+
+    // ─── rotten slot counts ───
+
+    // gets the rotten slot count of a container from its last pass, or -1 if it has not been counted yet
+    public static int getRottenSlots(ServerLevel level, long pos) {
+        Long2IntMap rotten = ROTTEN_SLOTS.get(level.dimension());
+        return rotten != null ? rotten.get(pos) : -1;
+    }
+
+    public static void setRottenSlots(ServerLevel level, long pos, int rottenSlots) {
+        ROTTEN_SLOTS.computeIfAbsent(level.dimension(), k -> {
+            Long2IntMap map = new Long2IntOpenHashMap();
+            map.defaultReturnValue(-1);
+            return map;
+        }).put(pos, rottenSlots);
+    }
+
+    // ─── rescans ───
+
+    // asks for loaded containers to be scanned again, items that were not spoilable may be now
+    public static void requestRescan() {
+        rescanGeneration++;
+    }
+
+    // checks if a level has not been scanned since the last rescan request
+    public static boolean needsRescan(ServerLevel level) {
+        Integer scanned = SCANNED_GENERATION.get(level.dimension());
+        return scanned == null || scanned != rescanGeneration;
+    }
+
+    public static void markRescanned(ServerLevel level) {
+        SCANNED_GENERATION.put(level.dimension(), rescanGeneration);
+    }
+
+    // checks if any slot of a container holds a spoilable item,
+    // directly or packed in a shulker box item or bundle
+    public static boolean containsSpoilable(Container container) {
+        for (int i = 0; i < container.getContainerSize(); i++) {
+            ItemStack stack = container.getItem(i);
+            if (!stack.isEmpty() && (SpoilageCalculator.isSpoilable(stack) || NestedContainerSpoilage.containsSpoilable(stack))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // preservation rate a container was settled at and the tick its next item threshold is reached
+    private record SettledState(float rate, long untilTick) {
+    }
+}
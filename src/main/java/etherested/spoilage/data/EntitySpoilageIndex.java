@@ -0,0 +1,158 @@
+package etherested.spoilage.data;
+
+import etherested.spoilage.logic.NestedContainerSpoilage;
+import etherested.spoilage.logic.SpoilageCalculator;
+import etherested.spoilage.mixin.AbstractHorseAccessor;
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2LongMap;
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMaps;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.Container;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.animal.horse.AbstractHorse;
+import net.minecraft.world.entity.item.ItemEntity;
+import net.minecraft.world.entity.vehicle.ContainerEntity;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.Level;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// index of entities holding spoilable items, per dimension and chunk:
+// dropped items (including packed shulker boxes and bundles), container minecarts and chest boats, and chested horses (donkeys, mules, llamas);
+// entities are added when they load holding food or when food is put into them,
+// moved to their current chunk and dropped once found without food by the periodic entity pass,
+// so that pass only visits entities that actually need processing
+public class EntitySpoilageIndex {
+
+    // indexed entity IDs, grouped by the ChunkPos.toLong() they were last seen in
+    private static final Map<ResourceKey<Level>, Long2ObjectMap<IntSet>> ENTITIES = new HashMap<>();
+
+    // chunk each indexed entity is grouped under, to find its group again after it moved
+    private static final Map<ResourceKey<Level>, Int2LongMap> CHUNK_OF = new HashMap<>();
+
+    // rotten slot count of each entity inventory from its last pass, per dimension;
+    // the contamination penalty of a pass is based on it so slots are only evaluated once per pass
+    private static final Map<ResourceKey<Level>, Int2IntMap> ROTTEN_SLOTS = new HashMap<>();
+
+    // gets the indexed entities of a level, keyed by ChunkPos.toLong();
+    // do not modify while iterating, use move() and remove() after the pass instead
+    public static Long2ObjectMap<IntSet> getIndexedChunks(ServerLevel level) {
+        Long2ObjectMap<IntSet> chunks = ENTITIES.get(level.dimension());
+        return chunks != null ? chunks : Long2ObjectMaps.emptyMap();
+    }
+
+    // called when an entity loads into a level
+    public static void onEntityLoad(ServerLevel level, Entity entity) {
+        if (holdsSpoilable(entity)) {
+            move(level, entity.getId(), entity.chunkPosition().toLong());
+        }
+    }
+
+    // called when an entity's inventory is changed; adding is cheap,
+    // the periodic pass checks the contents and drops entities without food
+    public static void onEntityChanged(ServerLevel level, Entity entity) {
+        move(level, entity.getId(), entity.chunkPosition().toLong());
+    }
+
+    // called when an entity unloads or is removed
+    public static void onEntityUnload(ServerLevel level, Entity entity) {
+        remove(level, entity.getId());
+    }
+
+    // adds an entity to the index or moves it to the group of another chunk
+    public static void move(ServerLevel level, int entityId, long chunkKey) {
+        Int2LongMap chunkOf = CHUNK_OF.computeIfAbsent(level.dimension(), k -> new Int2LongOpenHashMap());
+        Long2ObjectMap<IntSet> chunks = ENTITIES.computeIfAbsent(level.dimension(), k -> new Long2ObjectOpenHashMap<>());
+
+        if (chunkOf.containsKey(entityId)) {
+            long previous = chunkOf.get(entityId);
+            if (previous == chunkKey) {
+                return;
+            }
+            removeFromChunk(chunks, previous, entityId);
+        }
+
+        chunkOf.put(entityId, chunkKey);
+        chunks.computeIfAbsent(chunkKey, k -> new IntOpenHashSet()).add(entityId);
+    }
+
+    // drops an entity from the index
+    public static void remove(ServerLevel level, int entityId) {
+        Int2LongMap chunkOf = CHUNK_OF.get(level.dimension());
+        if (chunkOf == null || !chunkOf.containsKey(entityId)) {
+            return;
+        }
+
+        long chunkKey = chunkOf.remove(entityId);
+        Int2IntMap rotten = ROTTEN_SLOTS.get(level.dimension());
+        if (rotten != null) {
+            rotten.remove(entityId);
+        }
+
+        Long2ObjectMap<IntSet> chunks = ENTITIES.get(level.dimension());
+        if (chunks != null) {
+            removeFromChunk(chunks, chunkKey, entityId);
+        }
+    }
+
+    private static void removeFromChunk(Long2ObjectMap<IntSet> chunks, long chunkKey, int entityId) {
+        IntSet ids = chunks.get(chunkKey);
+        if (ids != null && ids.remove(entityId) && ids.isEmpty()) {
+            chunks.remove(chunkKey);
+        }
+    }
+
+    // forgets all indexed entities of a level when it unloads
+    public static void onLevelUnload(ServerLevel level) {
+        ENTITIES.remove(level.dimension());
+        CHUNK_OF.remove(level.dimension());
+        ROTTEN_SLOTS.remove(level.dimension());
+    }
+
+    // gets the rotten slot count of an entity inventory from its last pass, or -1 if it has not been counted yet
+    public static int getRottenSlots(ServerLevel level, int entityId) {
+        Int2IntMap rotten = ROTTEN_SLOTS.get(level.dimension());
+        return rotten != null ? rotten.get(entityId) : -1;
+    }
+
+    public static void setRottenSlots(ServerLevel level, int entityId, int rottenSlots) {
+        ROTTEN_SLOTS.computeIfAbsent(level.dimension(), k -> {
+            Int2IntMap map = new Int2IntOpenHashMap();
+            map.defaultReturnValue(-1);
+            return map;
+        }).put(entityId, rottenSlots);
+    }
+
+    // gets the inventory of an entity that can hold items, or null for other entities;
+    // dropped items are handled separately since they hold a single stack
+    @Nullable
+    public static Container getInventory(Entity entity) {
+        if (entity instanceof ContainerEntity containerEntity) {
+            return containerEntity;
+        }
+        if (entity instanceof AbstractHorse horse) {
+            return ((AbstractHorseAccessor) horse).getHorseInventory();
+        }
+        return null;
+    }
+
+    // checks if an entity holds a spoilable item, directly or packed in a shulker box item or bundle
+    public static boolean holdsSpoilable(Entity entity) {
+        if (entity instanceof ItemEntity itemEntity) {
+            ItemStack stack = itemEntity.getItem();
+            return SpoilageCalculator.isSpoilable(stack) || NestedContainerSpoilage.containsSpoilable(stack);
+        }
+
+        Container inventory = getInventory(entity);
+        return inventory != null && ContainerSpoilageIndex.containsSpoilable(inventory);
+    }
+}
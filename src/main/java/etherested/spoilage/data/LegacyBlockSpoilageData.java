@@ -0,0 +1,94 @@
+package etherested.spoilage.data;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.HolderLookup;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.dimension.DimensionType;
+import net.minecraft.world.level.saveddata.SavedData;
+import net.minecraft.world.level.storage.LevelResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// level-wide block spoilage data written by older versions as a single SavedData;
+// only read for migration, entries are handed over to per-chunk storage
+// as their chunks load and the remainder is written back until nothing is left;
+// the emptied file is deleted the next time it is loaded, it is only marked dirty while entries are drained
+public class LegacyBlockSpoilageData extends SavedData {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LegacyBlockSpoilageData.class);
+
+    public static final String DATA_NAME = "spoilage_block_data";
+
+    // legacy entries grouped by chunk so draining a chunk is a single lookup
+    private final Long2ObjectMap<ChunkSpoilageData> chunks = new Long2ObjectOpenHashMap<>();
+
+    public LegacyBlockSpoilageData() {
+    }
+
+    public static LegacyBlockSpoilageData load(CompoundTag tag, HolderLookup.Provider provider) {
+        LegacyBlockSpoilageData data = new LegacyBlockSpoilageData();
+
+        // the old level-wide format is the same entry list used per chunk
+        ChunkSpoilageData all = ChunkSpoilageData.load(tag);
+        BlockSpoilageEntryMap entries = all.getEntries();
+        for (int slot = entries.nextSlot(0); slot >= 0; slot = entries.nextSlot(slot + 1)) {
+            long pos = entries.keyAt(slot);
+            long chunkKey = ChunkPos.asLong(BlockPos.getX(pos) >> 4, BlockPos.getZ(pos) >> 4);
+            data.chunks.computeIfAbsent(chunkKey, k -> new ChunkSpoilageData())
+                    .getEntries().put(pos, entries.creationTimeAt(slot), entries.initialSpoilageAt(slot),
+                            entries.isPausedAt(slot), entries.typeAt(slot), entries.fullyGrownTimeAt(slot));
+        }
+
+        return data;
+    }
+
+    @Override
+    public CompoundTag save(CompoundTag tag, HolderLookup.Provider provider) {
+        ChunkSpoilageData all = new ChunkSpoilageData();
+        for (ChunkSpoilageData chunkData : chunks.values()) {
+            all.putAll(chunkData);
+        }
+        return all.save(tag);
+    }
+
+    // removes and returns the legacy entries for a chunk, or null if there are none
+    public ChunkSpoilageData drainChunk(ChunkPos chunkPos) {
+        ChunkSpoilageData drained = chunks.remove(chunkPos.toLong());
+        if (drained != null) {
+            setDirty();
+        }
+        return drained;
+    }
+
+    public boolean isEmpty() {
+        return chunks.isEmpty();
+    }
+
+    // deletes the legacy file of a level once nothing is left to migrate;
+    // the loaded instance is not dirty, so it is not written back either
+    public static void deleteFile(ServerLevel level) {
+        Path file = DimensionType.getStorageFolder(level.dimension(), level.getServer().getWorldPath(LevelResource.ROOT))
+                .resolve("data").resolve(DATA_NAME + ".dat");
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to delete migrated block spoilage data {}", file, e);
+        }
+    }
+
+    public static Factory<LegacyBlockSpoilageData> factory() {
+        //? if neoforge {
+        return new Factory<>(LegacyBlockSpoilageData::new, LegacyBlockSpoilageData::load);
+        //?} else {
+        /*return new Factory<>(LegacyBlockSpoilageData::new, LegacyBlockSpoilageData::load, null);
+        *///?}
+    }
+}
@@ -0,0 +1,87 @@
+package etherested.spoilage.data;
+
+import etherested.spoilage.Spoilage;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.chunk.LevelChunk;
+import org.jetbrains.annotations.Nullable;
+
+//? if neoforge {
+import net.neoforged.bus.api.IEventBus;
+import net.neoforged.neoforge.attachment.AttachmentType;
+import net.neoforged.neoforge.registries.DeferredHolder;
+import net.neoforged.neoforge.registries.DeferredRegister;
+import net.neoforged.neoforge.registries.NeoForgeRegistries;
+//?} else {
+/*import net.fabricmc.fabric.api.attachment.v1.AttachmentRegistry;
+import net.fabricmc.fabric.api.attachment.v1.AttachmentType;
+*///?}
+
+// registers data attachments and provides loader-agnostic access to them;
+// block spoilage is attached to chunks so it is saved with the chunk that owns it
+public class ModAttachments {
+
+    public static final ResourceLocation CHUNK_SPOILAGE_ID =
+            ResourceLocation.fromNamespaceAndPath(Spoilage.MODID, "chunk_spoilage");
+
+    //? if neoforge {
+    public static final DeferredRegister<AttachmentType<?>> ATTACHMENT_TYPES =
+            DeferredRegister.create(NeoForgeRegistries.Keys.ATTACHMENT_TYPES, Spoilage.MODID);
+
+    public static final DeferredHolder<AttachmentType<?>, AttachmentType<ChunkSpoilageData>> CHUNK_SPOILAGE =
+            ATTACHMENT_TYPES.register(CHUNK_SPOILAGE_ID.getPath(), () -> AttachmentType.builder(ChunkSpoilageData::new)
+                    .serialize(ChunkSpoilageData.CODEC)
+                    .build());
+
+    public static void register(IEventBus modEventBus) {
+        ATTACHMENT_TYPES.register(modEventBus);
+    }
+    //?} else {
+    /*private static AttachmentType<ChunkSpoilageData> CHUNK_SPOILAGE;
+
+    public static void register() {
+        CHUNK_SPOILAGE = AttachmentRegistry.<ChunkSpoilageData>builder()
+                .persistent(ChunkSpoilageData.CODEC)
+                .initializer(ChunkSpoilageData::new)
+                .buildAndRegister(CHUNK_SPOILAGE_ID);
+    }
+    *///?}
+
+    // gets the spoilage data attached to a chunk, or null if it has none
+    @Nullable
+    public static ChunkSpoilageData getChunkData(LevelChunk chunk) {
+        //? if neoforge {
+        return chunk.hasData(CHUNK_SPOILAGE) ? chunk.getData(CHUNK_SPOILAGE) : null;
+        //?} else {
+        /*return chunk.getAttached(CHUNK_SPOILAGE);
+        *///?}
+    }
+
+    // gets the spoilage data attached to a chunk, attaching an empty one if needed
+    public static ChunkSpoilageData getOrCreateChunkData(LevelChunk chunk) {
+        //? if neoforge {
+        return chunk.getData(CHUNK_SPOILAGE);
+        //?} else {
+        /*return chunk.getAttachedOrCreate(CHUNK_SPOILAGE);
+        *///?}
+    }
+
+    // replaces the spoilage data attached to a chunk
+    public static void setChunkData(LevelChunk chunk, ChunkSpoilageData data) {
+        //? if neoforge {
+        chunk.setData(CHUNK_SPOILAGE, data);
+        //?} else {
+        /*chunk.setAttached(CHUNK_SPOILAGE, data);
+        *///?}
+        chunk.setUnsaved(true);
+    }
+
+    // detaches the spoilage data from a chunk so empty data is not saved
+    public static void removeChunkData(LevelChunk chunk) {
+        //? if neoforge {
+        chunk.removeData(CHUNK_SPOILAGE);
+        //?} else {
+        /*chunk.removeAttached(CHUNK_SPOILAGE);
+        *///?}
+        chunk.setUnsaved(true);
+    }
+}
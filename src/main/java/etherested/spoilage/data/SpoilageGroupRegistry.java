@@ -57,6 +57,9 @@ public class SpoilageGroupRegistry extends SimpleJsonResourceReloadListener
         }
 
         LOGGER.info("Loaded {} spoilage groups", GROUPS.size());
+
+        // item lifetimes are resolved from their groups
+        SpoilageItemRegistry.rebuildLifetimes();
     }
 
     @Nullable
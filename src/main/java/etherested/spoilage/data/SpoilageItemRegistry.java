@@ -6,6 +6,8 @@ import com.google.gson.JsonElement;
 import org.slf4j.LoggerFactory;
 import com.mojang.serialization.JsonOps;
 import etherested.spoilage.Spoilage;
+import etherested.spoilage.logic.PlayerInventoryTracker;
+import net.minecraft.core.Registry;
 import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.packs.resources.ResourceManager;
@@ -16,6 +18,7 @@ import net.minecraft.world.level.block.Block;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -39,11 +42,11 @@ public class SpoilageItemRegistry extends SimpleJsonResourceReloadListener
     private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
     private static final String DIRECTORY = "spoilage";
 
-    // map from item registry ID to spoilage data
-    private static final Map<ResourceLocation, SpoilableItemData> ITEMS = new HashMap<>();
+    // lifetime returned for items without spoilage data
+    public static final long NOT_SPOILABLE = -1L;
 
-    // map from block registry ID to spoilage data
-    private static final Map<ResourceLocation, SpoilableItemData> BLOCKS = new HashMap<>();
+    // loaded spoilage data, replaced as a whole on every reload so readers never see a partial table
+    private static volatile Tables tables = Tables.EMPTY;
 
     public SpoilageItemRegistry() {
         super(GSON, DIRECTORY);
@@ -58,8 +61,8 @@ public class SpoilageItemRegistry extends SimpleJsonResourceReloadListener
 
     @Override
     protected void apply(Map<ResourceLocation, JsonElement> resources, ResourceManager resourceManager, ProfilerFiller profiler) {
-        ITEMS.clear();
-        BLOCKS.clear();
+        Map<ResourceLocation, SpoilableItemData> items = new HashMap<>();
+        Map<ResourceLocation, SpoilableItemData> blocks = new HashMap<>();
 
         for (Map.Entry<ResourceLocation, JsonElement> entry : resources.entrySet()) {
             ResourceLocation fileId = entry.getKey();
@@ -78,95 +81,184 @@ public class SpoilageItemRegistry extends SimpleJsonResourceReloadListener
 
                 // register as item if it exists
                 if (BuiltInRegistries.ITEM.containsKey(id)) {
-                    registerAsItem(id, data);
+                    registerAsItem(items, id, data);
                 }
 
                 // register as block if is_block is true and block exists
                 if (data.isBlock() && BuiltInRegistries.BLOCK.containsKey(id)) {
-                    registerAsBlock(id, data);
+                    registerAsBlock(blocks, id, data);
                 }
                 // also auto-detect: if ID matches a block but not an item, register as block
                 else if (!BuiltInRegistries.ITEM.containsKey(id) && BuiltInRegistries.BLOCK.containsKey(id)) {
-                    registerAsBlock(id, data);
+                    registerAsBlock(blocks, id, data);
                 }
             } catch (Exception e) {
                 LOGGER.error("Failed to load spoilage data for {}: {}", fileId, e.getMessage());
             }
         }
 
-        LOGGER.info("Loaded spoilage data for {} items and {} blocks", ITEMS.size(), BLOCKS.size());
+        SpoilableItemData[] itemsByRawId = indexByRawId(BuiltInRegistries.ITEM, items);
+        long[] lifetimes = computeLifetimes(itemsByRawId);
+        tables = new Tables(
+                Map.copyOf(items),
+                Map.copyOf(blocks),
+                itemsByRawId,
+                indexByRawId(BuiltInRegistries.BLOCK, blocks),
+                lifetimes,
+                computeLinkedLifetimes(items, lifetimes)
+        );
+
+        LOGGER.info("Loaded spoilage data for {} items and {} blocks", items.size(), blocks.size());
+
+        // items that just became spoilable may already sit in containers that are not indexed
+        ContainerSpoilageIndex.requestRescan();
+        PlayerInventoryTracker.invalidateAll();
     }
 
-    private void registerAsItem(ResourceLocation itemId, SpoilableItemData data) {
+    private void registerAsItem(Map<ResourceLocation, SpoilableItemData> items, ResourceLocation itemId, SpoilableItemData data) {
         if (!BuiltInRegistries.ITEM.containsKey(itemId)) {
             LOGGER.warn("Spoilage data for unknown item: {}", itemId);
             return;
         }
-        ITEMS.put(itemId, data);
+        items.put(itemId, data);
         LOGGER.debug("Loaded spoilage data for item: {}", itemId);
     }
 
-    private void registerAsBlock(ResourceLocation blockId, SpoilableItemData data) {
+    private void registerAsBlock(Map<ResourceLocation, SpoilableItemData> blocks, ResourceLocation blockId, SpoilableItemData data) {
         if (!BuiltInRegistries.BLOCK.containsKey(blockId)) {
             LOGGER.warn("Spoilage data for unknown block: {}", blockId);
             return;
         }
-        BLOCKS.put(blockId, data);
+        blocks.put(blockId, data);
         LOGGER.debug("Loaded spoilage data for block: {}", blockId);
     }
 
+    // builds a table indexed by raw registry ID, so lookups by object skip the ID -> key -> map path
+    private static <T> SpoilableItemData[] indexByRawId(Registry<T> registry, Map<ResourceLocation, SpoilableItemData> data) {
+        SpoilableItemData[] byRawId = new SpoilableItemData[registry.size()];
+        for (Map.Entry<ResourceLocation, SpoilableItemData> entry : data.entrySet()) {
+            int rawId = registry.getId(registry.get(entry.getKey()));
+            if (rawId >= 0 && rawId < byRawId.length) {
+                byRawId[rawId] = entry.getValue();
+            }
+        }
+        return byRawId;
+    }
+
+    // resolves every spoilable item's lifetime from its group (NOT_SPOILABLE for other items)
+    private static long[] computeLifetimes(SpoilableItemData[] itemsByRawId) {
+        long[] lifetimes = new long[itemsByRawId.length];
+        for (int rawId = 0; rawId < itemsByRawId.length; rawId++) {
+            SpoilableItemData data = itemsByRawId[rawId];
+            if (data == null) {
+                lifetimes[rawId] = NOT_SPOILABLE;
+                continue;
+            }
+            SpoilageGroupData groupData = SpoilageGroupRegistry.getGroup(data.spoilageGroup());
+            lifetimes[rawId] = groupData != null ? data.getLifetime(groupData) : SpoilageGroupData.DEFAULT_LIFETIME;
+        }
+        return lifetimes;
+    }
+
+    // resolves the lifetime of every block's linked item (see getLinkedItem), indexed by block raw ID;
+    // NOT_SPOILABLE for blocks without a linked item
+    private static long[] computeLinkedLifetimes(Map<ResourceLocation, SpoilableItemData> items, long[] lifetimes) {
+        long[] linked = new long[BuiltInRegistries.BLOCK.size()];
+        Arrays.fill(linked, NOT_SPOILABLE);
+        for (ResourceLocation id : items.keySet()) {
+            if (!BuiltInRegistries.BLOCK.containsKey(id)) {
+                continue;
+            }
+            int blockRawId = BuiltInRegistries.BLOCK.getId(BuiltInRegistries.BLOCK.get(id));
+            int itemRawId = BuiltInRegistries.ITEM.getId(BuiltInRegistries.ITEM.get(id));
+            if (blockRawId >= 0 && blockRawId < linked.length && itemRawId >= 0 && itemRawId < lifetimes.length) {
+                linked[blockRawId] = lifetimes[itemRawId];
+            }
+        }
+        return linked;
+    }
+
+    // recomputes item lifetimes after the spoilage groups were reloaded;
+    // the two registries reload independently, so whichever applies last leaves the table up to date
+    public static void rebuildLifetimes() {
+        Tables current = tables;
+        long[] lifetimes = computeLifetimes(current.itemsByRawId());
+        tables = new Tables(current.items(), current.blocks(), current.itemsByRawId(), current.blocksByRawId(),
+                lifetimes, computeLinkedLifetimes(current.items(), lifetimes));
+        PlayerInventoryTracker.invalidateAll();
+    }
+
+    @Nullable
+    private static SpoilableItemData lookup(SpoilableItemData[] byRawId, int rawId) {
+        return rawId >= 0 && rawId < byRawId.length ? byRawId[rawId] : null;
+    }
+
     // gets the spoilage data for an item by its registry ID
     @Nullable
     public static SpoilableItemData getData(ResourceLocation itemId) {
-        return ITEMS.get(itemId);
+        return tables.items().get(itemId);
     }
 
     // gets the spoilage data for an item
     @Nullable
     public static SpoilableItemData getData(Item item) {
-        return getData(BuiltInRegistries.ITEM.getKey(item));
+        return lookup(tables.itemsByRawId(), BuiltInRegistries.ITEM.getId(item));
+    }
+
+    // gets the total lifetime of an item in ticks, or NOT_SPOILABLE if it has no spoilage data
+    public static long getLifetime(Item item) {
+        long[] lifetimes = tables.lifetimesByRawId();
+        int rawId = BuiltInRegistries.ITEM.getId(item);
+        return rawId >= 0 && rawId < lifetimes.length ? lifetimes[rawId] : NOT_SPOILABLE;
+    }
+
+    // gets the total lifetime of a block's linked item in ticks, or NOT_SPOILABLE if it has none
+    public static long getLinkedItemLifetime(Block block) {
+        long[] lifetimes = tables.linkedLifetimesByBlockRawId();
+        int rawId = BuiltInRegistries.BLOCK.getId(block);
+        return rawId >= 0 && rawId < lifetimes.length ? lifetimes[rawId] : NOT_SPOILABLE;
     }
 
     // checks if an item has spoilage data defined
     public static boolean isSpoilable(ResourceLocation itemId) {
-        return ITEMS.containsKey(itemId);
+        return tables.items().containsKey(itemId);
     }
 
     // checks if an item has spoilage data defined
     public static boolean isSpoilable(Item item) {
-        return isSpoilable(BuiltInRegistries.ITEM.getKey(item));
+        return getData(item) != null;
     }
 
     // gets all registered item spoilage data
     public static Map<ResourceLocation, SpoilableItemData> getAllData() {
-        return Map.copyOf(ITEMS);
+        return tables.items();
     }
 
     // gets the spoilage data for a block by its registry ID
     @Nullable
     public static SpoilableItemData getBlockData(ResourceLocation blockId) {
-        return BLOCKS.get(blockId);
+        return tables.blocks().get(blockId);
     }
 
     // gets the spoilage data for a block
     @Nullable
     public static SpoilableItemData getBlockData(Block block) {
-        return getBlockData(BuiltInRegistries.BLOCK.getKey(block));
+        return lookup(tables.blocksByRawId(), BuiltInRegistries.BLOCK.getId(block));
     }
 
     // checks if a block has spoilage data defined
     public static boolean isBlockSpoilable(ResourceLocation blockId) {
-        return BLOCKS.containsKey(blockId);
+        return tables.blocks().containsKey(blockId);
     }
 
     // checks if a block has spoilage data defined
     public static boolean isBlockSpoilable(Block block) {
-        return isBlockSpoilable(BuiltInRegistries.BLOCK.getKey(block));
+        return getBlockData(block) != null;
     }
 
     // gets all registered block spoilage data
     public static Map<ResourceLocation, SpoilableItemData> getAllBlockData() {
-        return Map.copyOf(BLOCKS);
+        return tables.blocks();
     }
 
     // gets the linked item for a block (used for block→item spoilage transfer);
@@ -176,7 +268,7 @@ public class SpoilageItemRegistry extends SimpleJsonResourceReloadListener
     @Nullable
     public static ResourceLocation getLinkedItem(ResourceLocation blockId) {
         // check if item with same ID exists and is spoilable
-        if (ITEMS.containsKey(blockId)) {
+        if (tables.items().containsKey(blockId)) {
             return blockId;
         }
         return null;
@@ -189,4 +281,18 @@ public class SpoilageItemRegistry extends SimpleJsonResourceReloadListener
     public static ResourceLocation getLinkedItem(Block block) {
         return getLinkedItem(BuiltInRegistries.BLOCK.getKey(block));
     }
+
+    // item and block data by registry ID, plus the same data, item lifetimes and linked item lifetimes
+    // indexed by raw registry ID
+    private record Tables(
+            Map<ResourceLocation, SpoilableItemData> items,
+            Map<ResourceLocation, SpoilableItemData> blocks,
+            SpoilableItemData[] itemsByRawId,
+            SpoilableItemData[] blocksByRawId,
+            long[] lifetimesByRawId,
+            long[] linkedLifetimesByBlockRawId
+    ) {
+        static final Tables EMPTY = new Tables(Map.of(), Map.of(), new SpoilableItemData[0], new SpoilableItemData[0],
+                new long[0], new long[0]);
+    }
 }
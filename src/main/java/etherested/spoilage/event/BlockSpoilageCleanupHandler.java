@@ -116,7 +116,7 @@ public class BlockSpoilageCleanupHandler {
                         } else {
                             long lifetime = SpoilageCalculator.getLifetime(stack);
                             long elapsed = (long) (lifetime * spoilageToApply);
-                            adjustedCreation = worldTime - elapsed;
+                            adjustedCreation = SpoilageCalculator.quantizeCreationTime(worldTime - elapsed);
                         }
                         cachedData = new SpoilageData(adjustedCreation, SpoilageData.NOT_PAUSED, false, 1.0f, 0L, 0L, 1.0f, 1.0f);
                         spoilageDataCache.put(itemType, cachedData);
@@ -164,7 +164,7 @@ public class BlockSpoilageCleanupHandler {
                             } else {
                                 long itemLifetime = SpoilageCalculator.getLifetime(stack);
                                 long elapsed = (long) (itemLifetime * currentSpoilage);
-                                adjustedCreation = worldTime - elapsed;
+                                adjustedCreation = SpoilageCalculator.quantizeCreationTime(worldTime - elapsed);
                             }
                             cachedData = new SpoilageData(adjustedCreation, SpoilageData.NOT_PAUSED, false, 1.0f, 0L, 0L, 1.0f, 1.0f);
                         }
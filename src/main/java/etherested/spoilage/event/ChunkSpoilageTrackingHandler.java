@@ -0,0 +1,85 @@
+package etherested.spoilage.event;
+
+import etherested.spoilage.Spoilage;
+import etherested.spoilage.data.ChunkSpoilageCapability;
+import etherested.spoilage.data.ContainerSpoilageIndex;
+import etherested.spoilage.data.EntitySpoilageIndex;
+import etherested.spoilage.logic.ContainerSnapshotPipeline;
+import etherested.spoilage.logic.RottenReplacementQueue;
+import etherested.spoilage.logic.SpoilageWorkScheduler;
+import etherested.spoilage.logic.preservation.PreservationInfoCache;
+import etherested.spoilage.network.BlockSpoilageNetworkHandler;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.chunk.LevelChunk;
+
+//? if neoforge {
+import net.neoforged.bus.api.SubscribeEvent;
+import net.neoforged.fml.common.EventBusSubscriber;
+import net.neoforged.neoforge.event.level.ChunkEvent;
+import net.neoforged.neoforge.event.level.LevelEvent;
+//?} else {
+/*import net.fabricmc.fabric.api.event.lifecycle.v1.ServerChunkEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerWorldEvents;
+*///?}
+
+// keeps the per-chunk spoilage indexes in step with chunk loading;
+// block spoilage data and food-holding containers are indexed when their chunk loads
+// and dropped (with cached preservation info) when it unloads
+//? if neoforge {
+@EventBusSubscriber(modid = Spoilage.MODID)
+//?}
+public class ChunkSpoilageTrackingHandler {
+
+    //? if neoforge {
+    @SubscribeEvent
+    public static void onChunkLoad(ChunkEvent.Load event) {
+        if (event.getLevel() instanceof ServerLevel level && event.getChunk() instanceof LevelChunk chunk) {
+            handleChunkLoad(level, chunk);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onChunkUnload(ChunkEvent.Unload event) {
+        if (event.getLevel() instanceof ServerLevel level && event.getChunk() instanceof LevelChunk chunk) {
+            handleChunkUnload(level, chunk);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onLevelUnload(LevelEvent.Unload event) {
+        if (event.getLevel() instanceof ServerLevel level) {
+            handleLevelUnload(level);
+        }
+    }
+    //?} else {
+    /*public static void registerFabricEvents() {
+        ServerChunkEvents.CHUNK_LOAD.register(ChunkSpoilageTrackingHandler::handleChunkLoad);
+        ServerChunkEvents.CHUNK_UNLOAD.register(ChunkSpoilageTrackingHandler::handleChunkUnload);
+        ServerWorldEvents.UNLOAD.register((server, level) -> handleLevelUnload(level));
+    }
+    *///?}
+
+    // ─── shared logic ───
+
+    private static void handleChunkLoad(ServerLevel level, LevelChunk chunk) {
+        ChunkSpoilageCapability.onChunkLoad(level, chunk);
+        ContainerSpoilageIndex.onChunkLoad(level, chunk);
+    }
+
+    private static void handleChunkUnload(ServerLevel level, LevelChunk chunk) {
+        ChunkSpoilageCapability.onChunkUnload(level, chunk);
+        ContainerSpoilageIndex.onChunkUnload(level, chunk);
+        PreservationInfoCache.invalidateChunk(level, chunk.getPos().toLong());
+    }
+
+    private static void handleLevelUnload(ServerLevel level) {
+        ChunkSpoilageCapability.onLevelUnload(level);
+        ContainerSpoilageIndex.onLevelUnload(level);
+        EntitySpoilageIndex.onLevelUnload(level);
+        PreservationInfoCache.invalidateLevel(level);
+        SpoilageWorkScheduler.cancel(level.dimension());
+        ContainerSnapshotPipeline.onLevelUnload(level);
+        RottenReplacementQueue.onLevelUnload(level);
+        BlockSpoilageNetworkHandler.onLevelUnload(level);
+    }
+}
@@ -4,14 +4,24 @@ import etherested.spoilage.Spoilage;
 import etherested.spoilage.component.ModDataComponents;
 import etherested.spoilage.component.SpoilageData;
 import etherested.spoilage.config.SpoilageConfig;
-import etherested.spoilage.logic.ContainerSpoilageRates;
+import etherested.spoilage.data.ContainerSpoilageIndex;
+import etherested.spoilage.logic.ContainerSnapshotPipeline;
+import etherested.spoilage.logic.NestedContainerSpoilage;
+import etherested.spoilage.logic.RottenReplacementQueue;
 import etherested.spoilage.logic.SpoilageCalculator;
 import etherested.spoilage.logic.SpoilageProcessor;
+import etherested.spoilage.logic.SpoilageWorkScheduler;
 import etherested.spoilage.logic.preservation.PreservationManager;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
 import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.Container;
+import net.minecraft.world.entity.item.ItemEntity;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.Level;
@@ -21,13 +31,15 @@ import net.minecraft.world.level.chunk.LevelChunk;
 //? if neoforge {
 import net.neoforged.bus.api.SubscribeEvent;
 import net.neoforged.fml.common.EventBusSubscriber;
+import net.neoforged.neoforge.event.entity.EntityJoinLevelEvent;
 import net.neoforged.neoforge.event.tick.LevelTickEvent;
 //?} else {
-/*import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+/*import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
 *///?}
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.List;
+import java.util.function.Function;
 
 //? if neoforge {
 @SuppressWarnings("removal")
@@ -35,17 +47,19 @@ import java.util.Set;
 //?}
 public class ContainerSpoilageHandler {
 
-    // track containers processed this tick to prevent duplicate processing
-    // when multiple players are near the same container
-    private static final Set<BlockPos> processedThisTick = new HashSet<>();
-    private static long lastTickTime = -1;
-
     //? if neoforge {
     @SubscribeEvent
     public static void onLevelTick(LevelTickEvent.Post event) {
         if (!(event.getLevel() instanceof ServerLevel level)) return;
         handleLevelTick(level);
     }
+
+    @SubscribeEvent
+    public static void onEntityJoinLevel(EntityJoinLevelEvent event) {
+        if (event.getLevel() instanceof ServerLevel level && event.getEntity() instanceof ItemEntity itemEntity) {
+            closeDroppedRateSegment(itemEntity, level.getGameTime());
+        }
+    }
     //?} else {
     /*public static void registerFabricEvents() {
         ServerTickEvents.END_WORLD_TICK.register(level -> {
@@ -53,146 +67,322 @@ public class ContainerSpoilageHandler {
                 handleLevelTick(serverLevel);
             }
         });
+        ServerEntityEvents.ENTITY_LOAD.register((entity, level) -> {
+            if (entity instanceof ItemEntity itemEntity) {
+                closeDroppedRateSegment(itemEntity, level.getGameTime());
+            }
+        });
     }
     *///?}
 
     private static void handleLevelTick(ServerLevel level) {
+        submitChunkRound(level, "containers", roundLevel -> {
+            // after a datapack reload, pick up containers holding items that just became spoilable
+            if (ContainerSpoilageIndex.needsRescan(roundLevel)) {
+                rescanAroundPlayers(roundLevel, roundLevel.players(), roundLevel.getServer().getPlayerList().getViewDistance());
+                ContainerSpoilageIndex.markRescanned(roundLevel);
+            }
+            return ContainerSpoilageIndex.getIndexedChunks(roundLevel).keySet();
+        }, ContainerSpoilageHandler::processChunk);
+    }
+
+    // processes the indexed items of one chunk, one work unit of a round
+    @FunctionalInterface
+    interface ChunkWork {
+        void process(MinecraftServer server, ResourceKey<Level> dimension, long chunkKey);
+    }
+
+    // runs a round of a per-chunk pass (containers, entities): on check interval ticks while players are present,
+    // once the producer's previous round is finished, one work unit is submitted for every indexed chunk
+    // within view distance of a player
+    // @param kind the producer kind, one round per kind and dimension is in flight at a time
+    // @param indexedChunks gets the indexed chunk keys once the round has begun
+    static void submitChunkRound(ServerLevel level, String kind, Function<ServerLevel, LongSet> indexedChunks, ChunkWork work) {
         if (!SpoilageConfig.isEnabled()) return;
 
         long worldTime = level.getGameTime();
         if (worldTime % SpoilageConfig.getCheckIntervalTicks() != 0) return;
 
-        // reset processed set when tick changes
-        if (worldTime != lastTickTime) {
-            processedThisTick.clear();
-            lastTickTime = worldTime;
-        }
+        List<ServerPlayer> players = level.players();
+        if (players.isEmpty()) return;
+
+        // wait for the previous round to finish before queueing another
+        SpoilageWorkScheduler.Source source = new SpoilageWorkScheduler.Source(kind, level.dimension());
+        if (!SpoilageWorkScheduler.tryBeginRound(source, worldTime)) return;
 
-        // periodically check for config changes
-        ContainerSpoilageRates.checkForConfigRefresh(worldTime);
+        LongSet chunks = indexedChunks.apply(level);
+        if (chunks.isEmpty()) return;
 
-        // collect unique chunks to process first (avoids O(n²) when multiple players overlap)
-        Set<ChunkPos> chunksToProcess = new HashSet<>();
         int viewDistance = level.getServer().getPlayerList().getViewDistance();
+        ResourceKey<Level> dimension = level.dimension();
+        LongIterator chunkKeys = chunks.iterator();
+        while (chunkKeys.hasNext()) {
+            long chunkKey = chunkKeys.nextLong();
+
+            // only chunks near players are processed, as with the old view-distance scan
+            if (isNearAnyPlayer(players, ChunkPos.getX(chunkKey), ChunkPos.getZ(chunkKey), viewDistance)) {
+                SpoilageWorkScheduler.submit(source, server -> work.process(server, dimension, chunkKey));
+            }
+        }
+    }
 
-        for (ServerPlayer player : level.players()) {
+    // processes the indexed containers of one chunk, one work unit of a container round;
+    // containers found without food (or gone) are dropped from the index
+    private static void processChunk(MinecraftServer server, ResourceKey<Level> dimension, long chunkKey) {
+        ServerLevel level = server.getLevel(dimension);
+        if (level == null) return;
+
+        LongSet positions = ContainerSpoilageIndex.getIndexedChunks(level).get(chunkKey);
+        if (positions == null) return;
+
+        LevelChunk chunk = level.getChunkSource().getChunkNow(ChunkPos.getX(chunkKey), ChunkPos.getZ(chunkKey));
+        if (chunk == null) {
+            ContainerSpoilageIndex.removeChunk(level, chunkKey);
+            return;
+        }
+
+        long worldTime = level.getGameTime();
+
+        // copy positions, processing a container can report a change and touch the index
+        for (long packedPos : positions.toLongArray()) {
+            BlockPos pos = BlockPos.of(packedPos);
+            BlockEntity be = chunk.getBlockEntity(pos);
+
+            if (!(be instanceof Container container)
+                    || !processContainerWithPreservation(container, be, pos, worldTime, level)) {
+                ContainerSpoilageIndex.remove(level, chunkKey, packedPos);
+            }
+        }
+    }
+
+    // checks if a chunk is within view distance of any player
+    static boolean isNearAnyPlayer(List<ServerPlayer> players, int chunkX, int chunkZ, int viewDistance) {
+        for (ServerPlayer player : players) {
+            ChunkPos playerChunk = player.chunkPosition();
+            if (Math.abs(playerChunk.x - chunkX) <= viewDistance && Math.abs(playerChunk.z - chunkZ) <= viewDistance) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // rebuilds the index for every loaded chunk within view distance of a player
+    private static void rescanAroundPlayers(ServerLevel level, List<ServerPlayer> players, int viewDistance) {
+        LongSet scanned = new LongOpenHashSet();
+
+        for (ServerPlayer player : players) {
             int chunkX = player.chunkPosition().x;
             int chunkZ = player.chunkPosition().z;
 
             for (int dx = -viewDistance; dx <= viewDistance; dx++) {
                 for (int dz = -viewDistance; dz <= viewDistance; dz++) {
-                    chunksToProcess.add(new ChunkPos(chunkX + dx, chunkZ + dz));
+                    if (!scanned.add(ChunkPos.asLong(chunkX + dx, chunkZ + dz))) continue;
+
+                    LevelChunk chunk = level.getChunkSource().getChunkNow(chunkX + dx, chunkZ + dz);
+                    if (chunk != null) {
+                        ContainerSpoilageIndex.indexChunk(level, chunk);
+                    }
                 }
             }
         }
+    }
 
-        // process each unique chunk once
-        for (ChunkPos chunkPos : chunksToProcess) {
-            LevelChunk chunk = level.getChunkSource().getChunkNow(chunkPos.x, chunkPos.z);
-            if (chunk == null) continue;
+    // an item dropped out of a lazily preserved container must stop accruing container savings
+    private static void closeDroppedRateSegment(ItemEntity itemEntity, long worldTime) {
+        ItemStack stack = itemEntity.getItem();
+        SpoilageData data = stack.get(ModDataComponents.spoilageData());
+        if (data != null && data.hasOpenSegment()) {
+            stack.set(ModDataComponents.spoilageData(), data.closeSegment(worldTime));
+        }
+    }
 
-            for (BlockEntity be : chunk.getBlockEntities().values()) {
-                if (be instanceof Container container) {
-                    BlockPos pos = be.getBlockPos();
-                    // Skip if already processed this tick
-                    if (processedThisTick.contains(pos)) continue;
-                    processedThisTick.add(pos);
+    // processes the spoilable items of a container, returns false if it holds none
+    private static boolean processContainerWithPreservation(Container container, BlockEntity blockEntity, BlockPos pos, long worldTime, ServerLevel level) {
+        // get preservation info from the manager (includes Y-level, biome, and container factors)
+        PreservationManager.PreservationInfo info = PreservationManager.getCachedContainerPreservationInfo(level, pos, blockEntity);
 
-                    processContainerWithPreservation(container, be, pos, worldTime, level);
-                }
+        // a settled container keeps spoiling analytically through its items' rate segments,
+        // its contents have not changed since (that unsettles it) so it needs no work at all
+        boolean lazy = SpoilageConfig.isLazyContainerPreservationEnabled();
+        float baseMultiplier = info.getCombinedMultiplier();
+        if (lazy && ContainerSpoilageIndex.isSettled(level, pos.asLong(), baseMultiplier, worldTime)) {
+            return true;
+        }
+
+        // snapshot the items and compute on a worker, results are applied in a later tick
+        if (!lazy && SpoilageConfig.isAsyncContainerProcessingEnabled()) {
+            return ContainerSnapshotPipeline.submit(level, pos, container, info, worldTime);
+        }
+
+        if (!ContainerSpoilageIndex.containsSpoilable(container)) {
+            return false;
+        }
+
+        // contamination penalty from the rotten slots of the previous pass (counted directly on the first pass);
+        // every slot is then evaluated once, which also yields the count for the next pass
+        int previousRotten = ContainerSpoilageIndex.getRottenSlots(level, pos.asLong());
+        if (previousRotten < 0) {
+            previousRotten = SpoilageCalculator.countRottenSlots(container, worldTime);
+        }
+        PreservationManager.PreservationInfo slotInfo =
+                info.withContamination(SpoilageCalculator.getContaminationMultiplier(previousRotten));
+
+        SlotPass pass = processSlots(container, slotInfo, lazy, worldTime, level,
+                (slot, stack, data, lifetime) ->
+                        RottenReplacementQueue.isContainerSlotQueued(level, pos, slot, stack, data, lifetime, slotInfo),
+                (slot, stack, data, lifetime) ->
+                        RottenReplacementQueue.scheduleContainerSlot(level, pos, slot, stack, data, lifetime, slotInfo, worldTime));
+
+        ContainerSpoilageIndex.setRottenSlots(level, pos.asLong(), pass.rottenSlots());
+
+        // segment and nested content changes are item data changes, make sure the container gets saved
+        if (pass.itemsChanged()) {
+            blockEntity.setChanged();
+        }
+
+        if (lazy) {
+            // replacements may be spoilable themselves and a changed rotten count changes the
+            // contamination penalty, process once more before settling
+            if (!pass.replaced() && pass.rottenSlots() == previousRotten) {
+                ContainerSpoilageIndex.settle(level, pos.asLong(), baseMultiplier, pass.settledUntil());
             }
         }
+        return true;
     }
 
-    private static void processContainerWithPreservation(Container container, BlockEntity blockEntity, BlockPos pos, long worldTime, Level level) {
-        // get preservation info from the manager (includes Y-level, biome, and container factors)
-        PreservationManager.PreservationInfo info = PreservationManager.getContainerPreservationInfo(level, pos, blockEntity);
+    // checks if the rotten replacement of a slot evaluated by a fused slot pass is already queued at its current rate
+    @FunctionalInterface
+    interface SlotQueueCheck {
+        boolean isQueued(int slot, ItemStack stack, SpoilageData data, long lifetime);
+    }
+
+    // schedules the rotten replacement of a slot evaluated by a fused slot pass
+    @FunctionalInterface
+    interface SlotScheduler {
+        void schedule(int slot, ItemStack stack, SpoilageData data, long lifetime);
+    }
 
-        // count rotten slots and apply contamination penalty
-        int rottenSlots = SpoilageCalculator.countRottenSlots(container, worldTime);
-        float contaminationMultiplier = SpoilageCalculator.getContaminationMultiplier(rottenSlots);
-        info = info.withContamination(contaminationMultiplier);
+    // outcome of a fused slot pass
+    // @param settledUntil earliest tick an item reaches its next threshold (lazy passes only)
+    record SlotPass(int rottenSlots, boolean itemsChanged, boolean replaced, long settledUntil) {
+    }
 
-        float combinedMultiplier = info.getCombinedMultiplier();
+    // evaluates every slot of a container once: nested contents, preservation, rotten replacement and
+    // replacement scheduling, with each stack's spoilage computed a single time;
+    // slots already queued at their current rate are left to the RottenReplacementQueue, which replaces them on time;
+    // also counts the rotten slots that set the contamination penalty of the next pass
+    // @param info preservation info, including the contamination penalty from the previous pass
+    // @param lazy keep items on rate segments (stationary containers) instead of adding savings each pass
+    static SlotPass processSlots(Container container, PreservationManager.PreservationInfo info, boolean lazy,
+                                 long worldTime, ServerLevel level, SlotQueueCheck queue, SlotScheduler scheduler) {
+        int rottenSlots = 0;
+        boolean itemsChanged = false;
+        boolean replaced = false;
+        long settledUntil = Long.MAX_VALUE;
 
         for (int i = 0; i < container.getContainerSize(); i++) {
             ItemStack stack = container.getItem(i);
-            if (!stack.isEmpty() && SpoilageCalculator.isSpoilable(stack)) {
+            if (stack.isEmpty()) {
+                continue;
+            }
+            if (!SpoilageCalculator.isSpoilable(stack)) {
+                // food packed into a shulker box or bundle spoils at the nested container rate
+                itemsChanged |= NestedContainerSpoilage.update(stack, worldTime);
+                continue;
+            }
+
+            if (lazy) {
+                // initialize first so new items get a segment in this same pass
+                SpoilageProcessor.processStack(stack, worldTime, level);
+                itemsChanged |= updateRateSegment(stack, info, worldTime);
+            } else {
                 // Apply preservation effects, storing both container multiplier and biome multiplier
                 adjustSpoilageForPreservation(stack, info, worldTime);
                 SpoilageProcessor.processStack(stack, worldTime, level);
+            }
 
-                // Check for rotten replacement after processing
-                ItemStack replacement = SpoilageProcessor.checkRottenReplacement(stack, worldTime);
-                if (replacement != null) {
-                    container.setItem(i, replacement);
-                }
+            SpoilageData data = SpoilageCalculator.getInitializedData(stack);
+            long lifetime = SpoilageCalculator.getLifetime(stack);
+            if (data == null || lifetime <= 0) {
+                continue;
+            }
+            float spoilage = SpoilageCalculator.getSpoilagePercent(data, lifetime, worldTime);
+
+            // Check for rotten replacement after processing
+            boolean queued = queue.isQueued(i, stack, data, lifetime);
+            ItemStack replacement = queued ? null : SpoilageProcessor.getRottenReplacement(stack, spoilage);
+            if (replacement != null) {
+                container.setItem(i, replacement);
+                replaced = true;
+                continue;
+            }
+
+            if (spoilage >= 0.8f) {
+                rottenSlots++;
+            }
+            if (!queued) {
+                scheduler.schedule(i, stack, data, lifetime);
+            }
+            if (lazy) {
+                // effective lifetime consumed per world tick while the segment is open
+                double rate = data.preservationMultiplier() * SpoilageConfig.getGlobalSpeedMultiplier() - (1.0 - info.getCombinedMultiplier());
+                settledUntil = Math.min(settledUntil, SpoilageCalculator.getNextThresholdTick(data, lifetime, rate, worldTime));
             }
         }
+
+        return new SlotPass(rottenSlots, itemsChanged, replaced, settledUntil);
     }
 
-    // adjusts item's preservation savings to simulate slower spoilage while in container;
-    // uses cumulative savings approach instead of modifying creation time to prevent
-    // rollback issues when multiple players are near the same container;
-    // also stores the current preservation multipliers for smooth tooltip display
-    // @param stack the item stack to adjust
-    // @param info the preservation info containing all multipliers
-    // @param worldTime current world time
-    private static void adjustSpoilageForPreservation(ItemStack stack, PreservationManager.PreservationInfo info, long worldTime) {
+    // starts, restarts or closes an item's rate segment to match the container's current rate;
+    // returns true if the item data was changed
+    private static boolean updateRateSegment(ItemStack stack, PreservationManager.PreservationInfo info, long worldTime) {
         SpoilageData data = SpoilageCalculator.getInitializedData(stack);
         if (data == null || data.isPaused()) {
-            return;
+            return false;
         }
 
         float combinedMultiplier = info.getCombinedMultiplier();
+        boolean neutral = Math.abs(combinedMultiplier - 1.0f) < 0.001f;
 
-        // skip if already processed this tick (item-level deduplication)
-        if (data.lastYLevelProcessTick() == worldTime) {
-            return;
+        if (data.hasOpenSegment()) {
+            // same rate as the running segment, nothing to write
+            if (Math.abs(data.currentContainerYMultiplier() - combinedMultiplier) < 0.001f) {
+                return false;
+            }
+            stack.set(ModDataComponents.spoilageData(), neutral
+                    ? data.closeSegment(worldTime)
+                    : data.openSegment(combinedMultiplier, info.biomeMultiplier(), worldTime));
+            return true;
         }
 
-        long lastProcessTick = data.lastYLevelProcessTick();
+        if (neutral) {
+            return false;
+        }
 
-        // first time processing - record the tick and multipliers, don't give savings yet
-        // this prevents giving savings for time the item wasn't actually in the container
-        if (lastProcessTick <= 0) {
-            stack.set(ModDataComponents.spoilageData(),
-                    data.withContainerPreservation(combinedMultiplier, info.biomeMultiplier(), worldTime));
+        stack.set(ModDataComponents.spoilageData(), data.openSegment(combinedMultiplier, info.biomeMultiplier(), worldTime));
+        return true;
+    }
+
+    // adjusts item's preservation savings to simulate slower spoilage while in container;
+    // uses cumulative savings approach instead of modifying creation time to prevent
+    // rollback issues when multiple players are near the same container;
+    // also stores the current preservation multipliers for smooth tooltip display
+    // @param stack the item stack to adjust
+    // @param info the preservation info containing all multipliers
+    // @param worldTime current world time
+    static void adjustSpoilageForPreservation(ItemStack stack, PreservationManager.PreservationInfo info, long worldTime) {
+        SpoilageData data = SpoilageCalculator.getInitializedData(stack);
+        if (data == null || data.isPaused()) {
             return;
         }
 
-        // if combinedMultiplier is effectively 1.0, no effect in either direction - just update the multipliers for display
-        if (Math.abs(combinedMultiplier - 1.0f) < 0.001f) {
-            stack.set(ModDataComponents.spoilageData(),
-                    data.withContainerPreservation(combinedMultiplier, info.biomeMultiplier(), worldTime));
+        // lazy preservation was turned off, fold the open segment back into the saved ticks
+        if (data.hasOpenSegment()) {
+            SpoilageCalculator.updateData(stack, data, data.closeSegment(worldTime));
             return;
         }
 
-        // calculate actual elapsed time since last processing
-        long elapsedSinceLastProcess = worldTime - lastProcessTick;
-
-        // sanity check - don't give savings for unreasonably long periods
-        // (e.g., if item was moved between containers or chunk was unloaded)
-        int maxElapsed = SpoilageConfig.getCheckIntervalTicks() * 3;
-        if (elapsedSinceLastProcess > maxElapsed) {
-            elapsedSinceLastProcess = maxElapsed;
-        }
-
-        // calculate ticks saved this interval due to preservation
-        // if combinedMultiplier is 0.5, items spoil at half speed, so we "give back" half the elapsed time
-        long ticksSaved = (long) (elapsedSinceLastProcess * (1.0f - combinedMultiplier));
-
-        // add savings to cumulative total and update multipliers for display
-        SpoilageData updated = data.addYLevelSavings(ticksSaved, worldTime);
-        stack.set(ModDataComponents.spoilageData(), new SpoilageData(
-                updated.creationTime(),
-                updated.remainingLifetime(),
-                updated.isPaused(),
-                updated.preservationMultiplier(),
-                updated.yLevelSavedTicks(),
-                updated.lastYLevelProcessTick(),
-                combinedMultiplier,
-                info.biomeMultiplier()
-        ));
+        SpoilageCalculator.updateData(stack, data, SpoilageCalculator.applyContainerPreservation(
+                data, info.getCombinedMultiplier(), info.biomeMultiplier(), worldTime));
     }
 }
@@ -0,0 +1,179 @@
+package etherested.spoilage.event;
+
+import etherested.spoilage.Spoilage;
+import etherested.spoilage.component.SpoilageData;
+import etherested.spoilage.data.ContainerSpoilageIndex;
+import etherested.spoilage.data.EntitySpoilageIndex;
+import etherested.spoilage.logic.NestedContainerSpoilage;
+import etherested.spoilage.logic.RottenReplacementQueue;
+import etherested.spoilage.logic.SpoilageCalculator;
+import etherested.spoilage.logic.SpoilageProcessor;
+import etherested.spoilage.logic.preservation.PreservationInfoCache;
+import etherested.spoilage.logic.preservation.PreservationManager;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.Container;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.item.ItemEntity;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.Level;
+
+//? if neoforge {
+import net.neoforged.bus.api.SubscribeEvent;
+import net.neoforged.fml.common.EventBusSubscriber;
+import net.neoforged.neoforge.event.entity.EntityJoinLevelEvent;
+import net.neoforged.neoforge.event.entity.EntityLeaveLevelEvent;
+import net.neoforged.neoforge.event.tick.LevelTickEvent;
+//?} else {
+/*import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+*///?}
+
+// applies preservation to food held by entities: dropped items, container minecarts, chest boats
+// and chested horses; entities come from the EntitySpoilageIndex, so the pass never scans all entities;
+// entities move, so preservation is looked up at their current position on every check (cached briefly per position)
+// and applied as savings the same way as for block entity containers (container multiplier 1.0)
+//? if neoforge {
+@SuppressWarnings("removal")
+@EventBusSubscriber(modid = Spoilage.MODID, bus = EventBusSubscriber.Bus.GAME)
+//?}
+public class EntitySpoilageHandler {
+
+    //? if neoforge {
+    @SubscribeEvent
+    public static void onLevelTick(LevelTickEvent.Post event) {
+        if (!(event.getLevel() instanceof ServerLevel level)) return;
+        handleLevelTick(level);
+    }
+
+    @SubscribeEvent
+    public static void onEntityJoinLevel(EntityJoinLevelEvent event) {
+        if (event.getLevel() instanceof ServerLevel level) {
+            EntitySpoilageIndex.onEntityLoad(level, event.getEntity());
+        }
+    }
+
+    @SubscribeEvent
+    public static void onEntityLeaveLevel(EntityLeaveLevelEvent event) {
+        if (event.getLevel() instanceof ServerLevel level) {
+            EntitySpoilageIndex.onEntityUnload(level, event.getEntity());
+        }
+    }
+    //?} else {
+    /*public static void registerFabricEvents() {
+        ServerTickEvents.END_WORLD_TICK.register(level -> {
+            if (level instanceof ServerLevel serverLevel) {
+                handleLevelTick(serverLevel);
+            }
+        });
+        ServerEntityEvents.ENTITY_LOAD.register((entity, level) -> EntitySpoilageIndex.onEntityLoad(level, entity));
+        ServerEntityEvents.ENTITY_UNLOAD.register((entity, level) -> EntitySpoilageIndex.onEntityUnload(level, entity));
+    }
+    *///?}
+
+    private static void handleLevelTick(ServerLevel level) {
+        ContainerSpoilageHandler.submitChunkRound(level, "entities", EntitySpoilageHandler::beginRound, EntitySpoilageHandler::processChunk);
+    }
+
+    // starts an entity round: drops the expired position-only preservation info,
+    // then returns the chunks with indexed entities
+    private static LongSet beginRound(ServerLevel level) {
+        PreservationInfoCache.sweepPositions(level, level.getGameTime());
+        return EntitySpoilageIndex.getIndexedChunks(level).keySet();
+    }
+
+    // processes the indexed entities of one chunk, one work unit of an entity round;
+    // entities that moved are regrouped under their new chunk, entities without food (or gone) are dropped
+    private static void processChunk(MinecraftServer server, ResourceKey<Level> dimension, long chunkKey) {
+        ServerLevel level = server.getLevel(dimension);
+        if (level == null) return;
+
+        IntSet ids = EntitySpoilageIndex.getIndexedChunks(level).get(chunkKey);
+        if (ids == null) return;
+
+        long worldTime = level.getGameTime();
+
+        // copy IDs, moving and dropping entities touches the index
+        for (int id : ids.toIntArray()) {
+            Entity entity = level.getEntity(id);
+            if (entity == null || entity.isRemoved()) {
+                EntitySpoilageIndex.remove(level, id);
+                continue;
+            }
+
+            long currentChunk = entity.chunkPosition().toLong();
+            if (currentChunk != chunkKey) {
+                EntitySpoilageIndex.move(level, id, currentChunk);
+            }
+
+            if (!processEntity(level, entity, worldTime)) {
+                EntitySpoilageIndex.remove(level, id);
+            }
+        }
+    }
+
+    // processes the spoilable items held by an entity, returns false if it holds none
+    private static boolean processEntity(ServerLevel level, Entity entity, long worldTime) {
+        if (entity instanceof ItemEntity itemEntity) {
+            ItemStack stack = itemEntity.getItem();
+            if (stack.isEmpty()) {
+                return false;
+            }
+            if (!SpoilageCalculator.isSpoilable(stack)) {
+                // a dropped shulker box or bundle, its food spoils at the nested container rate
+                NestedContainerSpoilage.update(stack, worldTime);
+                return NestedContainerSpoilage.containsSpoilable(stack);
+            }
+
+            PreservationManager.PreservationInfo info = PreservationManager.getCachedPreservationInfo(level, entity.blockPosition());
+            ContainerSpoilageHandler.adjustSpoilageForPreservation(stack, info, worldTime);
+            SpoilageProcessor.processStack(stack, worldTime, level);
+
+            SpoilageData data = SpoilageCalculator.getInitializedData(stack);
+            long lifetime = SpoilageCalculator.getLifetime(stack);
+            if (data == null || lifetime <= 0) {
+                return true;
+            }
+
+            // left to the queue when it already holds the item at its current rate
+            if (RottenReplacementQueue.isEntitySlotQueued(level, entity, 0, stack, data, lifetime, info)) {
+                return true;
+            }
+
+            ItemStack replacement = SpoilageProcessor.getRottenReplacement(stack,
+                    SpoilageCalculator.getSpoilagePercent(data, lifetime, worldTime));
+            if (replacement != null) {
+                itemEntity.setItem(replacement);
+            } else {
+                RottenReplacementQueue.scheduleEntitySlot(level, entity, 0, stack, data, lifetime, info, worldTime);
+            }
+            return true;
+        }
+
+        Container inventory = EntitySpoilageIndex.getInventory(entity);
+        if (inventory == null || !ContainerSpoilageIndex.containsSpoilable(inventory)) {
+            return false;
+        }
+
+        // contamination penalty from the rotten slots of the previous pass (counted directly on the first pass),
+        // the same fused slot pass as block entity containers then evaluates every slot once
+        int previousRotten = EntitySpoilageIndex.getRottenSlots(level, entity.getId());
+        if (previousRotten < 0) {
+            previousRotten = SpoilageCalculator.countRottenSlots(inventory, worldTime);
+        }
+        PreservationManager.PreservationInfo info = PreservationManager.getCachedPreservationInfo(level, entity.blockPosition())
+                .withContamination(SpoilageCalculator.getContaminationMultiplier(previousRotten));
+
+        ContainerSpoilageHandler.SlotPass pass = ContainerSpoilageHandler.processSlots(inventory, info, false, worldTime, level,
+                (slot, stack, data, lifetime) ->
+                        RottenReplacementQueue.isEntitySlotQueued(level, entity, slot, stack, data, lifetime, info),
+                (slot, stack, data, lifetime) ->
+                        RottenReplacementQueue.scheduleEntitySlot(level, entity, slot, stack, data, lifetime, info, worldTime));
+
+        EntitySpoilageIndex.setRottenSlots(level, entity.getId(), pass.rottenSlots());
+        return true;
+    }
+}
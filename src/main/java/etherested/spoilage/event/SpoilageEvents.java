@@ -1,10 +1,15 @@
 package etherested.spoilage.event;
 
 import etherested.spoilage.Spoilage;
-import etherested.spoilage.config.SpoilageConfig;
 import etherested.spoilage.data.SpoilageGroupRegistry;
 import etherested.spoilage.data.SpoilageItemRegistry;
+import etherested.spoilage.logic.ContainerSnapshotPipeline;
+import etherested.spoilage.logic.PlayerSpoilageScheduler;
+import etherested.spoilage.logic.RottenReplacementQueue;
 import etherested.spoilage.logic.SpoilageProcessor;
+import etherested.spoilage.logic.SpoilageWorkScheduler;
+import etherested.spoilage.network.BlockSpoilageNetworkHandler;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerPlayer;
 
 //? if neoforge {
@@ -12,7 +17,7 @@ import net.neoforged.bus.api.SubscribeEvent;
 import net.neoforged.fml.common.EventBusSubscriber;
 import net.neoforged.neoforge.event.AddReloadListenerEvent;
 import net.neoforged.neoforge.event.entity.player.PlayerEvent;
-import net.neoforged.neoforge.event.tick.PlayerTickEvent;
+import net.neoforged.neoforge.event.tick.ServerTickEvent;
 //?} else {
 /*import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
@@ -20,10 +25,6 @@ import net.fabricmc.fabric.api.resource.ResourceManagerHelper;
 import net.minecraft.server.packs.PackType;
 *///?}
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
-
 // game event handlers for spoilage mechanics
 //? if neoforge {
 @SuppressWarnings("removal")
@@ -31,13 +32,10 @@ import java.util.UUID;
 //?}
 public class SpoilageEvents {
 
-    private static final Map<UUID, Long> lastProcessTime = new HashMap<>();
-
     //? if neoforge {
     @SubscribeEvent
-    public static void onPlayerTick(PlayerTickEvent.Post event) {
-        if (!(event.getEntity() instanceof ServerPlayer player)) return;
-        handlePlayerTick(player);
+    public static void onServerTick(ServerTickEvent.Post event) {
+        handleServerTick(event.getServer());
     }
 
     @SubscribeEvent
@@ -61,11 +59,7 @@ public class SpoilageEvents {
     }
     //?} else {
     /*public static void registerFabricEvents() {
-        ServerTickEvents.END_WORLD_TICK.register(level -> {
-            for (ServerPlayer player : level.players()) {
-                handlePlayerTick(player);
-            }
-        });
+        ServerTickEvents.END_SERVER_TICK.register(SpoilageEvents::handleServerTick);
 
         ServerPlayConnectionEvents.JOIN.register((handler, sender, server) -> {
             handlePlayerLogin(handler.getPlayer());
@@ -82,17 +76,13 @@ public class SpoilageEvents {
 
     // ─── shared logic ───
 
-    private static void handlePlayerTick(ServerPlayer player) {
-        if (!SpoilageConfig.isEnabled()) return;
-
-        long currentTime = player.level().getGameTime();
-        UUID playerId = player.getUUID();
-
-        Long lastTime = lastProcessTime.get(playerId);
-        if (lastTime == null || currentTime - lastTime >= SpoilageConfig.getCheckIntervalTicks()) {
-            SpoilageProcessor.processPlayerInventory(player);
-            lastProcessTime.put(playerId, currentTime);
-        }
+    // level ticks have queued their container and sync work by now
+    private static void handleServerTick(MinecraftServer server) {
+        ContainerSnapshotPipeline.applyCompleted(server);
+        RottenReplacementQueue.tick(server);
+        PlayerSpoilageScheduler.tick(server);
+        SpoilageWorkScheduler.runPending(server);
+        BlockSpoilageNetworkHandler.flushPendingBlocks(server);
     }
 
     private static void handlePlayerLogin(ServerPlayer player) {
@@ -101,6 +91,8 @@ public class SpoilageEvents {
 
     private static void handlePlayerLogout(ServerPlayer player) {
         SpoilageProcessor.onPlayerLogout(player);
-        lastProcessTime.remove(player.getUUID());
+        PlayerSpoilageScheduler.remove(player);
+        SpoilageProcessor.forgetPlayer(player);
+        BlockSpoilageNetworkHandler.forgetPlayer(player);
     }
 }
@@ -0,0 +1,268 @@
+package etherested.spoilage.logic;
+
+import etherested.spoilage.component.ModDataComponents;
+import etherested.spoilage.component.SpoilageData;
+import etherested.spoilage.config.SpoilageConfig;
+import etherested.spoilage.data.ContainerSpoilageIndex;
+import etherested.spoilage.data.SpoilableItemData;
+import etherested.spoilage.logic.preservation.PreservationManager;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.Util;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.Container;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.chunk.LevelChunk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// computes container spoilage off the server thread (asyncContainerProcessing);
+// the server thread snapshots the spoilage data of a container's items together with the config values
+// the computation needs, a background worker applies the preservation savings and computes each item's spoilage,
+// and the results are applied on the server thread at the end of a later tick, where rotten replacements
+// happen and the rotten slots are counted; as in the server-thread pass, the contamination penalty
+// comes from the rotten slot count of the previous pass;
+// a result is only applied to a slot that still holds the same stack with the same data,
+// anything changed in the meantime is left for the next round
+public class ContainerSnapshotPipeline {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ContainerSnapshotPipeline.class);
+
+    // finished snapshots, filled by workers and drained on the server thread
+    private static final Queue<Snapshot> completed = new ConcurrentLinkedQueue<>();
+
+    // containers with a snapshot in flight, per dimension; only touched on the server thread
+    private static final Map<ResourceKey<Level>, LongSet> inFlight = new HashMap<>();
+
+    // snapshots a container and hands it to a worker; initialization and closing of
+    // rate segments happen right here since they write to the stacks
+    // @return false if the container holds no spoilable items
+    public static boolean submit(ServerLevel level, BlockPos pos, Container container,
+                                 PreservationManager.PreservationInfo info, long worldTime) {
+        LongSet levelInFlight = inFlight.computeIfAbsent(level.dimension(), k -> new LongOpenHashSet());
+        if (levelInFlight.contains(pos.asLong())) {
+            // previous snapshot not applied yet, it still counts as holding food
+            return true;
+        }
+
+        // contamination penalty from the rotten slots of the previous pass (counted directly on the first pass)
+        int previousRotten = ContainerSpoilageIndex.getRottenSlots(level, pos.asLong());
+        if (previousRotten < 0) {
+            previousRotten = SpoilageCalculator.countRottenSlots(container, worldTime);
+        }
+        PreservationManager.PreservationInfo slotInfo =
+                info.withContamination(SpoilageCalculator.getContaminationMultiplier(previousRotten));
+
+        int size = container.getContainerSize();
+        int count = 0;
+        int[] slots = new int[size];
+        ItemStack[] stacks = new ItemStack[size];
+        SpoilageData[] data = new SpoilageData[size];
+        long[] lifetimes = new long[size];
+        boolean[] replaceable = new boolean[size];
+        boolean holdsNested = false;
+        boolean nestedChanged = false;
+
+        for (int i = 0; i < size; i++) {
+            ItemStack stack = container.getItem(i);
+            if (stack.isEmpty()) {
+                continue;
+            }
+            if (!SpoilageCalculator.isSpoilable(stack)) {
+                // nested contents are rebuilt here, it only happens once after packing
+                nestedChanged |= NestedContainerSpoilage.update(stack, worldTime);
+                holdsNested |= NestedContainerSpoilage.containsSpoilable(stack);
+                continue;
+            }
+
+            SpoilageProcessor.processStack(stack, worldTime, level);
+            SpoilageData stackData = SpoilageCalculator.getInitializedData(stack);
+            if (stackData == null) {
+                continue;
+            }
+
+            // lazy preservation was turned off, fold the open segment back into the saved ticks
+            if (stackData.hasOpenSegment()) {
+                SpoilageData closed = stackData.closeSegment(worldTime);
+                SpoilageCalculator.updateData(stack, stackData, closed);
+                stackData = closed;
+            }
+
+            SpoilableItemData itemData = SpoilageCalculator.getSpoilableData(stack);
+
+            slots[count] = i;
+            stacks[count] = stack;
+            data[count] = stackData;
+            lifetimes[count] = SpoilageCalculator.getLifetime(stack);
+            replaceable[count] = itemData != null && itemData.rottenReplacement().isPresent();
+            count++;
+        }
+
+        if (nestedChanged) {
+            container.setChanged();
+        }
+        if (count == 0) {
+            // a container holding only packed food stays indexed, there is nothing to compute for it
+            return holdsNested;
+        }
+
+        Snapshot snapshot = new Snapshot(level.dimension(), pos.immutable(), worldTime, slotInfo,
+                SpoilageConfig.getGlobalSpeedMultiplier(), SpoilageCalculator.getMaxSavingsElapsed(),
+                count, slots, stacks, data, lifetimes, replaceable);
+        levelInFlight.add(pos.asLong());
+
+        CompletableFuture.runAsync(snapshot::compute, Util.backgroundExecutor())
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        LOGGER.error("Failed to compute container spoilage at {}", snapshot.pos, error);
+                    }
+                    completed.add(snapshot);
+                });
+        return true;
+    }
+
+    // applies finished snapshots; called on the server thread at the end of every tick
+    public static void applyCompleted(MinecraftServer server) {
+        Snapshot snapshot;
+        while ((snapshot = completed.poll()) != null) {
+            LongSet levelInFlight = inFlight.get(snapshot.dimension);
+            if (levelInFlight != null) {
+                levelInFlight.remove(snapshot.pos.asLong());
+            }
+
+            ServerLevel level = server.getLevel(snapshot.dimension);
+            if (level != null && snapshot.updated != null) {
+                apply(level, snapshot);
+            }
+        }
+    }
+
+    // forgets containers in flight for a level that unloads, late results find no level and are dropped
+    public static void onLevelUnload(ServerLevel level) {
+        inFlight.remove(level.dimension());
+    }
+
+    private static void apply(ServerLevel level, Snapshot snapshot) {
+        LevelChunk chunk = level.getChunkSource().getChunkNow(
+                SectionPos.blockToSectionCoord(snapshot.pos.getX()), SectionPos.blockToSectionCoord(snapshot.pos.getZ()));
+        if (chunk == null) {
+            return;
+        }
+
+        BlockEntity blockEntity = chunk.getBlockEntity(snapshot.pos);
+        if (!(blockEntity instanceof Container container)) {
+            return;
+        }
+
+        long worldTime = level.getGameTime();
+        int rottenSlots = 0;
+
+        for (int i = 0; i < snapshot.count; i++) {
+            int slot = snapshot.slots[i];
+            if (slot >= container.getContainerSize()) {
+                continue;
+            }
+
+            // skip slots that changed since the snapshot, the next round picks them up
+            ItemStack stack = container.getItem(slot);
+            SpoilageData current = stack.get(ModDataComponents.spoilageData());
+            if (stack != snapshot.stacks[i] || current != snapshot.data[i]) {
+                continue;
+            }
+
+            SpoilageCalculator.updateData(stack, current, snapshot.updated[i]);
+            if (snapshot.lifetimes[i] <= 0) {
+                continue;
+            }
+
+            // left to the RottenReplacementQueue when it already holds the item at its current rate
+            boolean queued = snapshot.replaceable[i] && RottenReplacementQueue.isContainerSlotQueued(level, snapshot.pos, slot,
+                    stack, snapshot.updated[i], snapshot.lifetimes[i], snapshot.info);
+            ItemStack replacement = queued ? null : SpoilageProcessor.getRottenReplacement(stack, snapshot.spoilage[i]);
+            if (replacement != null) {
+                container.setItem(slot, replacement);
+                continue;
+            }
+
+            if (snapshot.spoilage[i] >= 0.8f) {
+                rottenSlots++;
+            }
+            if (snapshot.replaceable[i] && !queued) {
+                RottenReplacementQueue.scheduleContainerSlot(level, snapshot.pos, slot, stack,
+                        snapshot.updated[i], snapshot.lifetimes[i], snapshot.info, worldTime);
+            }
+        }
+
+        ContainerSpoilageIndex.setRottenSlots(level, snapshot.pos.asLong(), rottenSlots);
+    }
+
+    // spoilage data of one container's spoilable items, and the results computed from it;
+    // inputs are immutable values (SpoilageData is a record), stacks are only used for checks on the server thread;
+    // config values are captured on the server thread so the worker never reads the config
+    private static final class Snapshot {
+        final ResourceKey<Level> dimension;
+        final BlockPos pos;
+        final long worldTime;
+        // includes the contamination penalty from the previous pass
+        final PreservationManager.PreservationInfo info;
+        final double globalSpeedMultiplier;
+        final long maxSavingsElapsed;
+        final int count;
+        final int[] slots;
+        final ItemStack[] stacks;
+        final SpoilageData[] data;
+        final long[] lifetimes;
+        final boolean[] replaceable;
+
+        // written by the worker, published to the server thread through the completed queue
+        SpoilageData[] updated;
+        float[] spoilage;
+
+        Snapshot(ResourceKey<Level> dimension, BlockPos pos, long worldTime, PreservationManager.PreservationInfo info,
+                 double globalSpeedMultiplier, long maxSavingsElapsed,
+                 int count, int[] slots, ItemStack[] stacks, SpoilageData[] data, long[] lifetimes, boolean[] replaceable) {
+            this.dimension = dimension;
+            this.pos = pos;
+            this.worldTime = worldTime;
+            this.info = info;
+            this.globalSpeedMultiplier = globalSpeedMultiplier;
+            this.maxSavingsElapsed = maxSavingsElapsed;
+            this.count = count;
+            this.slots = slots;
+            this.stacks = stacks;
+            this.data = data;
+            this.lifetimes = lifetimes;
+            this.replaceable = replaceable;
+        }
+
+        // runs on a worker thread: same steps as the server-thread pass, on snapshotted values
+        void compute() {
+            SpoilageData[] newData = new SpoilageData[count];
+            float[] newSpoilage = new float[count];
+
+            for (int i = 0; i < count; i++) {
+                SpoilageData updatedData = data[i].isPaused() ? data[i] : SpoilageCalculator.applyContainerPreservation(
+                        data[i], info.getCombinedMultiplier(), info.biomeMultiplier(), worldTime, maxSavingsElapsed);
+                newData[i] = updatedData;
+                newSpoilage[i] = lifetimes[i] > 0
+                        ? SpoilageCalculator.getSpoilagePercent(updatedData, lifetimes[i], worldTime, globalSpeedMultiplier)
+                        : 0.0f;
+            }
+
+            spoilage = newSpoilage;
+            updated = newData;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package etherested.spoilage.logic;
 
 import org.slf4j.LoggerFactory;
 import etherested.spoilage.config.SpoilageConfig;
+import it.unimi.dsi.fastutil.objects.Reference2FloatOpenHashMap;
 import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.level.block.Block;
@@ -9,35 +10,44 @@ import net.minecraft.world.level.block.entity.BlockEntity;
 import org.slf4j.Logger;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 // manages per-container spoilage rate multipliers;
-// parses config format "namespace:container;multiplier" and provides lookup
+// parses config format "namespace:container;multiplier" into an immutable lookup keyed by block,
+// which is rebuilt only after the config changes and swapped in whole, so readers never see a partial table
 public class ContainerSpoilageRates {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ContainerSpoilageRates.class);
-    private static final Map<ResourceLocation, Float> containerRates = new HashMap<>();
-    private static boolean initialized = false;
-    private static long lastConfigCheck = 0;
-    private static final long CONFIG_CHECK_INTERVAL = 100; // Check every 100 ticks
 
-    // initializes or refreshes the container rates from config;
-    // call this periodically or when config might have changed
+    // compiled rates, null until first use or after the config changed
+    private static volatile Rates rates;
+
+    // compiles the container rates from config and publishes them;
+    // blocks are resolved here so lookups don't need the registry
     public static void refresh() {
-        containerRates.clear();
+        Map<ResourceLocation, Float> byId = new HashMap<>();
+        for (String entry : SpoilageConfig.getContainerSpoilageRates()) {
+            parseEntry(entry, byId);
+        }
 
-        List<? extends String> rates = SpoilageConfig.getContainerSpoilageRates();
-        for (String entry : rates) {
-            parseEntry(entry);
+        Reference2FloatOpenHashMap<Block> byBlock = new Reference2FloatOpenHashMap<>(byId.size());
+        byBlock.defaultReturnValue(1.0f);
+        for (Map.Entry<ResourceLocation, Float> entry : byId.entrySet()) {
+            Optional<Block> block = BuiltInRegistries.BLOCK.getOptional(entry.getKey());
+            if (block.isPresent()) {
+                byBlock.put(block.get(), entry.getValue().floatValue());
+            } else {
+                LOGGER.debug("Container spoilage rate for unknown block: {}", entry.getKey());
+            }
         }
 
-        initialized = true;
-        LOGGER.debug("Loaded {} container spoilage rates", containerRates.size());
+        rates = new Rates(byBlock, Map.copyOf(byId));
+        LOGGER.debug("Loaded {} container spoilage rates", byId.size());
     }
 
     // parses a single config entry in format "namespace:container;multiplier"
-    private static void parseEntry(String entry) {
+    private static void parseEntry(String entry, Map<ResourceLocation, Float> byId) {
         if (entry == null || entry.isEmpty()) {
             return;
         }
@@ -64,7 +74,7 @@ public class ContainerSpoilageRates {
                 return;
             }
 
-            containerRates.put(location, multiplier);
+            byId.put(location, multiplier);
             LOGGER.debug("Registered container spoilage rate: {} = {}", location, multiplier);
 
         } catch (NumberFormatException e) {
@@ -81,12 +91,7 @@ public class ContainerSpoilageRates {
             return 1.0f;
         }
 
-        ensureInitialized();
-
-        Block block = blockEntity.getBlockState().getBlock();
-        ResourceLocation blockId = BuiltInRegistries.BLOCK.getKey(block);
-
-        return containerRates.getOrDefault(blockId, 1.0f);
+        return getRates().byBlock().getFloat(blockEntity.getBlockState().getBlock());
     }
 
     // gets the spoilage rate multiplier for a block by its ID;
@@ -98,9 +103,7 @@ public class ContainerSpoilageRates {
             return 1.0f;
         }
 
-        ensureInitialized();
-
-        return containerRates.getOrDefault(blockId, 1.0f);
+        return getRates().byId().getOrDefault(blockId, 1.0f);
     }
 
     // checks if a container has a custom spoilage rate defined
@@ -109,33 +112,26 @@ public class ContainerSpoilageRates {
             return false;
         }
 
-        ensureInitialized();
-
-        Block block = blockEntity.getBlockState().getBlock();
-        ResourceLocation blockId = BuiltInRegistries.BLOCK.getKey(block);
-
-        return containerRates.containsKey(blockId);
+        return getRates().byBlock().containsKey(blockEntity.getBlockState().getBlock());
     }
 
-    // ensures the rates are initialized, refreshing from config if needed
-    private static void ensureInitialized() {
-        if (!initialized) {
+    // gets the compiled rates, compiling them from config if needed
+    private static Rates getRates() {
+        Rates current = rates;
+        if (current == null) {
             refresh();
+            current = rates;
         }
+        return current;
     }
 
-    // checks and potentially refreshes config (call periodically from tick handlers)
-    public static void checkForConfigRefresh(long worldTime) {
-        if (worldTime - lastConfigCheck > CONFIG_CHECK_INTERVAL) {
-            lastConfigCheck = worldTime;
-            // reparse in case config was hot-reloaded
-            refresh();
-        }
+    // drops the compiled rates, they are rebuilt from config on next use;
+    // registered as a config change listener
+    public static void invalidate() {
+        rates = null;
     }
 
-    // clears the cache and marks as uninitialized
-    public static void invalidate() {
-        containerRates.clear();
-        initialized = false;
+    // rates by resolved block (default 1.0) and by configured ID; never modified once published
+    private record Rates(Reference2FloatOpenHashMap<Block> byBlock, Map<ResourceLocation, Float> byId) {
     }
 }
@@ -0,0 +1,129 @@
+package etherested.spoilage.logic;
+
+import etherested.spoilage.component.ModDataComponents;
+import etherested.spoilage.component.SpoilageData;
+import etherested.spoilage.config.SpoilageConfig;
+import net.minecraft.core.component.DataComponents;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.component.BundleContents;
+import net.minecraft.world.item.component.ItemContainerContents;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// applies the nested container multiplier to food inside item-form containers
+// (shulker box items with the CONTAINER component, bundles);
+// nested food gets an open rate segment at that multiplier, so its savings are computed on read
+// from the tick it was packed instead of rewriting the nested contents every check;
+// the contents are only rebuilt when food without a matching segment is found, i.e. once after packing;
+// food that was never initialized is initialized then, so packing fresh food does not stop its clock;
+// the segment is folded in once the food is unpacked (the container and player passes close or restart it);
+// holders are updated by the player, container and entity passes wherever they are found
+public class NestedContainerSpoilage {
+
+    // gets the component holding an item-form container's contents, or null for other items;
+    // a new contents instance means the contents changed
+    @Nullable
+    public static Object getContents(ItemStack stack) {
+        ItemContainerContents container = stack.get(DataComponents.CONTAINER);
+        if (container != null) {
+            return container;
+        }
+        return stack.get(DataComponents.BUNDLE_CONTENTS);
+    }
+
+    // checks if an item-form container holds spoilable food
+    public static boolean containsSpoilable(ItemStack holder) {
+        ItemContainerContents container = holder.get(DataComponents.CONTAINER);
+        if (container != null && anySpoilable(container.nonEmptyItems())) {
+            return true;
+        }
+
+        BundleContents bundle = holder.get(DataComponents.BUNDLE_CONTENTS);
+        return bundle != null && anySpoilable(bundle.items());
+    }
+
+    private static boolean anySpoilable(Iterable<ItemStack> items) {
+        for (ItemStack stack : items) {
+            if (!stack.isEmpty() && SpoilageCalculator.isSpoilable(stack)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // gives the food inside an item-form container a rate segment at the nested container multiplier
+    // @return true if the contents were rewritten
+    public static boolean update(ItemStack holder, long worldTime) {
+        float multiplier = SpoilageConfig.getNestedContainerMultiplier();
+
+        ItemContainerContents container = holder.get(DataComponents.CONTAINER);
+        if (container != null && needsUpdate(container.nonEmptyItems(), multiplier)) {
+            List<ItemStack> items = new ArrayList<>(container.stream().toList());
+            updateAll(items, multiplier, worldTime);
+            holder.set(DataComponents.CONTAINER, ItemContainerContents.fromItems(items));
+            return true;
+        }
+
+        BundleContents bundle = holder.get(DataComponents.BUNDLE_CONTENTS);
+        if (bundle != null && needsUpdate(bundle.items(), multiplier)) {
+            List<ItemStack> items = new ArrayList<>(bundle.itemCopyStream().toList());
+            updateAll(items, multiplier, worldTime);
+            holder.set(DataComponents.BUNDLE_CONTENTS, new BundleContents(items));
+            return true;
+        }
+
+        return false;
+    }
+
+    // checks the nested stacks without copying them
+    private static boolean needsUpdate(Iterable<ItemStack> items, float multiplier) {
+        for (ItemStack stack : items) {
+            if (stack.isEmpty() || !SpoilageCalculator.isSpoilable(stack)) {
+                continue;
+            }
+            // uninitialized food needs its clock started
+            SpoilageData data = SpoilageCalculator.getInitializedData(stack);
+            if (data == null || (!data.isPaused() && !hasSegmentAt(data, multiplier))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // initializes food and opens, restarts or closes segments on copies of the nested stacks
+    private static void updateAll(List<ItemStack> items, float multiplier, long worldTime) {
+        boolean neutral = Math.abs(multiplier - 1.0f) < 0.001f;
+
+        for (ItemStack stack : items) {
+            SpoilageCalculator.initializeSpoilage(stack, worldTime);
+
+            SpoilageData data = getSegmentCandidate(stack);
+            if (data == null || hasSegmentAt(data, multiplier)) {
+                continue;
+            }
+            stack.set(ModDataComponents.spoilageData(), neutral
+                    ? data.closeSegment(worldTime)
+                    : data.openSegment(multiplier, 1.0f, worldTime));
+        }
+    }
+
+    // gets the data of a nested stack that can carry a segment (initialized, unpaused food)
+    @Nullable
+    private static SpoilageData getSegmentCandidate(ItemStack stack) {
+        if (stack.isEmpty() || !SpoilageCalculator.isSpoilable(stack)) {
+            return null;
+        }
+        SpoilageData data = SpoilageCalculator.getInitializedData(stack);
+        return data != null && !data.isPaused() ? data : null;
+    }
+
+    // checks if a nested stack already spoils at the nested rate (a neutral rate needs no segment)
+    private static boolean hasSegmentAt(SpoilageData data, float multiplier) {
+        if (Math.abs(multiplier - 1.0f) < 0.001f) {
+            return !data.hasOpenSegment();
+        }
+        return data.hasOpenSegment() && Math.abs(data.currentContainerYMultiplier() - multiplier) < 0.001f;
+    }
+}
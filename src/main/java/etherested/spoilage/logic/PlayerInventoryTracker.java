@@ -0,0 +1,76 @@
+package etherested.spoilage.logic;
+
+import etherested.spoilage.component.ModDataComponents;
+import etherested.spoilage.component.SpoilageData;
+import net.minecraft.world.entity.player.Inventory;
+import net.minecraft.world.item.ItemStack;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+// remembers what each player's inventory looked like after its last spoilage pass,
+// so the next pass can be skipped while nothing changed;
+// an inventory counts as unchanged while every slot holds the same stack instance with the same
+// spoilage data instance (moving, adding or replacing an item swaps the instance, data updates swap the data)
+// and the same nested contents for shulker boxes and bundles,
+// and nothing is due before the earliest tick at which an item turns rotten, spoils or leaves its container multiplier;
+// only read and written on the server thread, except invalidateAll
+public class PlayerInventoryTracker {
+
+    // bumped to drop every summary at once (config change, datapack reload)
+    private static volatile int generation;
+
+    private static final Map<UUID, Summary> summaries = new HashMap<>();
+
+    // checks if a player's inventory is unchanged since its last pass and nothing is due yet
+    public static boolean isUnchanged(UUID playerId, Inventory inventory, long worldTime) {
+        Summary summary = summaries.get(playerId);
+        if (summary == null || summary.generation() != generation || worldTime >= summary.nextEventTick()
+                || summary.stacks().length != inventory.getContainerSize()) {
+            return false;
+        }
+
+        for (int i = 0; i < summary.stacks().length; i++) {
+            ItemStack stack = inventory.getItem(i);
+            if (stack != summary.stacks()[i] || stack.get(ModDataComponents.spoilageData()) != summary.data()[i]
+                    || NestedContainerSpoilage.getContents(stack) != summary.contents()[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // records the state of a player's inventory at the end of a pass
+    // @param nextEventTick the earliest world tick at which the pass has work to do again
+    public static void record(UUID playerId, Inventory inventory, long nextEventTick) {
+        int size = inventory.getContainerSize();
+        ItemStack[] stacks = new ItemStack[size];
+        SpoilageData[] data = new SpoilageData[size];
+        Object[] contents = new Object[size];
+
+        for (int i = 0; i < size; i++) {
+            ItemStack stack = inventory.getItem(i);
+            stacks[i] = stack;
+            data[i] = stack.get(ModDataComponents.spoilageData());
+            contents[i] = NestedContainerSpoilage.getContents(stack);
+        }
+
+        summaries.put(playerId, new Summary(generation, stacks, data, contents, nextEventTick));
+    }
+
+    // forgets the summary of a player that left
+    public static void forget(UUID playerId) {
+        summaries.remove(playerId);
+    }
+
+    // forgets every summary, used when lifetimes or spoilage speed may have changed
+    public static void invalidateAll() {
+        generation++;
+    }
+
+    // slot contents after the last pass; stacks are compared by identity and never modified,
+    // contents are the nested container components of shulker boxes and bundles
+    private record Summary(int generation, ItemStack[] stacks, SpoilageData[] data, Object[] contents, long nextEventTick) {
+    }
+}
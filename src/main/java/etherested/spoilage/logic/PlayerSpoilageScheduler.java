@@ -0,0 +1,55 @@
+package etherested.spoilage.logic;
+
+import etherested.spoilage.config.SpoilageConfig;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+// spreads player inventory processing evenly over the check interval;
+// each player is due on the tick matching their entity ID within the interval,
+// so players that joined together no longer get processed in the same tick;
+// due inventories are handed to the SpoilageWorkScheduler and processed within its tick budget
+public class PlayerSpoilageScheduler {
+
+    private static final SpoilageWorkScheduler.Source SOURCE = new SpoilageWorkScheduler.Source("player inventories", null);
+
+    // players whose inventory is queued, so a slow queue never holds the same player twice
+    private static final Set<UUID> pendingIds = new HashSet<>();
+
+    // called at the end of every server tick, before the work scheduler runs
+    public static void tick(MinecraftServer server) {
+        if (!SpoilageConfig.isEnabled()) return;
+
+        List<ServerPlayer> players = server.getPlayerList().getPlayers();
+        if (players.isEmpty()) return;
+
+        int interval = SpoilageConfig.getCheckIntervalTicks();
+
+        // entity IDs are handed out sequentially, so buckets by ID spread players across the interval
+        for (ServerPlayer player : players) {
+            long worldTime = player.level().getGameTime();
+            UUID playerId = player.getUUID();
+            if (Math.floorMod(worldTime + player.getId(), interval) == 0 && pendingIds.add(playerId)) {
+                SpoilageWorkScheduler.submit(SOURCE, s -> processQueued(s, playerId));
+            }
+        }
+    }
+
+    private static void processQueued(MinecraftServer server, UUID playerId) {
+        pendingIds.remove(playerId);
+
+        ServerPlayer player = server.getPlayerList().getPlayer(playerId);
+        if (player != null && !player.isRemoved()) {
+            SpoilageProcessor.processPlayerInventory(player);
+        }
+    }
+
+    // forgets a player that left; their queued unit finds them gone and does nothing
+    public static void remove(ServerPlayer player) {
+        pendingIds.remove(player.getUUID());
+    }
+}
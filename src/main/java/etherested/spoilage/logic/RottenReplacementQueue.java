@@ -0,0 +1,334 @@
+package etherested.spoilage.logic;
+
+import etherested.spoilage.component.SpoilageData;
+import etherested.spoilage.config.SpoilageConfig;
+import etherested.spoilage.data.EntitySpoilageIndex;
+import etherested.spoilage.data.SpoilableItemData;
+import etherested.spoilage.logic.preservation.PreservationManager;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.Container;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.item.ItemEntity;
+import net.minecraft.world.entity.player.Inventory;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.chunk.LevelChunk;
+
+import java.lang.ref.WeakReference;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+
+// fires rotten replacements at the tick an item becomes fully spoiled instead of at the next periodic pass;
+// the passes schedule every item that has a rotten replacement with the tick its spoilage reaches 100%
+// (spoilage is deterministic given its data and preservation rate), and only due entries are looked at each tick;
+// an entry is dropped when its slot no longer holds the same stack, and rescheduled when the item
+// turns out not to be spoiled yet (its preservation rate changed since it was scheduled);
+// the passes skip slots whose item is queued at the rate it spoils at now, and only check and schedule
+// the others, so an entry that fired without replacing (e.g. its chunk was unloaded) falls back to the next pass
+public class RottenReplacementQueue {
+
+    // a new due tick this much earlier replaces the scheduled one (in ticks); smaller shifts come from
+    // rounding of the saved ticks and are not worth another queue entry, a later due tick is handled
+    // by rescheduling when the early entry fires
+    private static final long RESCHEDULE_TOLERANCE = 20;
+
+    // rates closer than this count as unchanged when the passes look for queued slots
+    private static final double RATE_TOLERANCE = 0.0001;
+
+    private static final PriorityQueue<Entry> queue = new PriorityQueue<>(Comparator.comparingLong(Entry::dueTick));
+
+    // the current entry of each slot; queued entries that are no longer current are skipped when polled
+    private static final Map<Object, Entry> scheduled = new HashMap<>();
+
+    // a slot of a block entity container
+    private record ContainerSlot(ResourceKey<Level> dimension, long pos, int slot) {
+    }
+
+    // a slot of a player inventory
+    private record PlayerSlot(UUID playerId, int slot) {
+    }
+
+    // a slot of an entity inventory, slot 0 of a dropped item
+    private record EntitySlot(ResourceKey<Level> dimension, UUID entityId, int slot) {
+    }
+
+    // preservation multipliers are kept for container slots processed without lazy preservation
+    // and for entity slots, whose savings are only added by the passes and have to be caught up before checking;
+    // rate and lifetime are the ones the due tick was computed from, a pass that sees others schedules again;
+    // the stack is weakly referenced, entries can wait for days and must not keep removed stacks alive
+    private record Entry(Object location, WeakReference<ItemStack> stack, long dueTick, double rate, long lifetime,
+                         float combinedMultiplier, float biomeMultiplier) {
+
+        boolean holds(ItemStack candidate) {
+            return stack.get() == candidate;
+        }
+    }
+
+    // schedules the replacement of an item in a container slot
+    // @param info the container's preservation info, including contamination
+    public static void scheduleContainerSlot(ServerLevel level, BlockPos pos, int slot, ItemStack stack,
+                                             SpoilageData data, long lifetime, PreservationManager.PreservationInfo info,
+                                             long worldTime) {
+        float combinedMultiplier = info.getCombinedMultiplier();
+        double rate = getRate(data, combinedMultiplier);
+        schedule(new ContainerSlot(level.dimension(), pos.asLong(), slot), stack, data, lifetime, rate,
+                combinedMultiplier, info.biomeMultiplier(), worldTime);
+    }
+
+    // schedules the replacement of an item held by an entity, in an inventory slot or as a dropped item (slot 0)
+    // @param info the preservation info at the entity's position, including contamination
+    public static void scheduleEntitySlot(ServerLevel level, Entity entity, int slot, ItemStack stack,
+                                          SpoilageData data, long lifetime, PreservationManager.PreservationInfo info,
+                                          long worldTime) {
+        float combinedMultiplier = info.getCombinedMultiplier();
+        double rate = getRate(data, combinedMultiplier);
+        schedule(new EntitySlot(level.dimension(), entity.getUUID(), slot), stack, data, lifetime, rate,
+                combinedMultiplier, info.biomeMultiplier(), worldTime);
+    }
+
+    // schedules the replacement of an item in a player inventory slot
+    public static void schedulePlayerSlot(ServerPlayer player, int slot, ItemStack stack,
+                                          SpoilageData data, long lifetime, long worldTime) {
+        schedule(new PlayerSlot(player.getUUID(), slot), stack, data, lifetime, getRate(data, 1.0f), 1.0f, 1.0f, worldTime);
+    }
+
+    // checks if the item in a container slot is queued at the rate it spoils at now;
+    // the passes leave such slots to the queue instead of checking them for a replacement and scheduling them again
+    // @param info the container's preservation info, including contamination
+    public static boolean isContainerSlotQueued(ServerLevel level, BlockPos pos, int slot, ItemStack stack,
+                                                SpoilageData data, long lifetime, PreservationManager.PreservationInfo info) {
+        return isQueued(new ContainerSlot(level.dimension(), pos.asLong(), slot), stack, data, lifetime,
+                getRate(data, info.getCombinedMultiplier()));
+    }
+
+    // checks if an item held by an entity is queued at the rate it spoils at now
+    // @param info the preservation info at the entity's position, including contamination
+    public static boolean isEntitySlotQueued(ServerLevel level, Entity entity, int slot, ItemStack stack,
+                                             SpoilageData data, long lifetime, PreservationManager.PreservationInfo info) {
+        return isQueued(new EntitySlot(level.dimension(), entity.getUUID(), slot), stack, data, lifetime,
+                getRate(data, info.getCombinedMultiplier()));
+    }
+
+    // checks if the item in a player inventory slot is queued at the rate it spoils at now
+    public static boolean isPlayerSlotQueued(ServerPlayer player, int slot, ItemStack stack, SpoilageData data, long lifetime) {
+        return isQueued(new PlayerSlot(player.getUUID(), slot), stack, data, lifetime, getRate(data, 1.0f));
+    }
+
+    private static boolean isQueued(Object location, ItemStack stack, SpoilageData data, long lifetime, double rate) {
+        Entry current = scheduled.get(location);
+        return current != null && current.holds(stack) && !data.isPaused()
+                && current.lifetime() == lifetime && Math.abs(current.rate() - rate) < RATE_TOLERANCE;
+    }
+
+    // effective lifetime an item consumes per world tick at the given combined preservation multiplier
+    private static double getRate(SpoilageData data, float combinedMultiplier) {
+        return data.preservationMultiplier() * SpoilageConfig.getGlobalSpeedMultiplier() - (1.0 - combinedMultiplier);
+    }
+
+    private static void schedule(Object location, ItemStack stack, SpoilageData data, long lifetime, double rate,
+                                 float combinedMultiplier, float biomeMultiplier, long worldTime) {
+        SpoilableItemData itemData = SpoilageCalculator.getSpoilableData(stack);
+        if (itemData == null || itemData.rottenReplacement().isEmpty() || data.isPaused() || rate <= 0) {
+            scheduled.remove(location);
+            return;
+        }
+
+        long remaining = SpoilageCalculator.getRemainingTicks(data, lifetime, worldTime);
+        long dueTick = worldTime + (long) Math.min(Math.ceil(remaining / rate), Long.MAX_VALUE / 2);
+
+        // already scheduled for the same stack at about the same tick or earlier, nothing to do
+        Entry current = scheduled.get(location);
+        if (current != null && current.holds(stack) && current.dueTick() - RESCHEDULE_TOLERANCE <= dueTick) {
+            return;
+        }
+
+        Entry entry = new Entry(location, new WeakReference<>(stack), dueTick, rate, lifetime, combinedMultiplier, biomeMultiplier);
+        scheduled.put(location, entry);
+        queue.add(entry);
+
+        // replaced entries stay queued until polled, drop them once they make up most of the queue
+        if (queue.size() > scheduled.size() * 2 + 64) {
+            queue.removeIf(queued -> scheduled.get(queued.location()) != queued);
+        }
+    }
+
+    // fires due replacements; called on the server thread at the end of every tick
+    public static void tick(MinecraftServer server) {
+        if (!SpoilageConfig.isEnabled()) return;
+
+        long worldTime = server.overworld().getGameTime();
+
+        Entry entry;
+        while ((entry = queue.peek()) != null && entry.dueTick() <= worldTime) {
+            queue.poll();
+            if (scheduled.get(entry.location()) != entry) {
+                continue;
+            }
+            scheduled.remove(entry.location());
+
+            if (entry.location() instanceof ContainerSlot slot) {
+                fireContainerSlot(server, slot, entry);
+            } else if (entry.location() instanceof PlayerSlot slot) {
+                firePlayerSlot(server, slot, entry);
+            } else if (entry.location() instanceof EntitySlot slot) {
+                fireEntitySlot(server, slot, entry);
+            }
+        }
+    }
+
+    private static void fireContainerSlot(MinecraftServer server, ContainerSlot slot, Entry entry) {
+        ServerLevel level = server.getLevel(slot.dimension());
+        if (level == null) {
+            return;
+        }
+
+        BlockPos pos = BlockPos.of(slot.pos());
+        LevelChunk chunk = level.getChunkSource().getChunkNow(
+                SectionPos.blockToSectionCoord(pos.getX()), SectionPos.blockToSectionCoord(pos.getZ()));
+        if (chunk == null) {
+            return;
+        }
+
+        BlockEntity blockEntity = chunk.getBlockEntity(pos);
+        if (!(blockEntity instanceof Container container) || slot.slot() >= container.getContainerSize()) {
+            return;
+        }
+
+        ItemStack stack = container.getItem(slot.slot());
+        if (!entry.holds(stack)) {
+            return;
+        }
+
+        long worldTime = level.getGameTime();
+        SpoilageData data = SpoilageCalculator.getInitializedData(stack);
+        long lifetime = SpoilageCalculator.getLifetime(stack);
+        if (data == null || data.isPaused() || lifetime <= 0) {
+            return;
+        }
+
+        // add the container savings accrued since the last pass, as that pass would have
+        if (!data.hasOpenSegment() && !SpoilageConfig.isLazyContainerPreservationEnabled()) {
+            SpoilageData updated = SpoilageCalculator.applyContainerPreservation(
+                    data, entry.combinedMultiplier(), entry.biomeMultiplier(), worldTime);
+            SpoilageCalculator.updateData(stack, data, updated);
+            data = updated;
+        }
+
+        ItemStack replacement = SpoilageProcessor.getRottenReplacement(stack,
+                SpoilageCalculator.getSpoilagePercent(data, lifetime, worldTime));
+        if (replacement != null) {
+            container.setItem(slot.slot(), replacement);
+        } else {
+            double rate = getRate(data, entry.combinedMultiplier());
+            schedule(slot, stack, data, lifetime, rate, entry.combinedMultiplier(), entry.biomeMultiplier(), worldTime);
+        }
+    }
+
+    private static void firePlayerSlot(MinecraftServer server, PlayerSlot slot, Entry entry) {
+        ServerPlayer player = server.getPlayerList().getPlayer(slot.playerId());
+        if (player == null) {
+            return;
+        }
+
+        Inventory inventory = player.getInventory();
+        if (slot.slot() >= inventory.getContainerSize()) {
+            return;
+        }
+
+        ItemStack stack = inventory.getItem(slot.slot());
+        if (!entry.holds(stack)) {
+            return;
+        }
+
+        long worldTime = player.level().getGameTime();
+        SpoilageData data = SpoilageCalculator.getInitializedData(stack);
+        long lifetime = SpoilageCalculator.getLifetime(stack);
+        if (data == null || lifetime <= 0) {
+            return;
+        }
+
+        ItemStack replacement = SpoilageProcessor.getRottenReplacement(stack,
+                SpoilageCalculator.getSpoilagePercent(data, lifetime, worldTime));
+        if (replacement != null) {
+            inventory.setItem(slot.slot(), replacement);
+        } else {
+            schedulePlayerSlot(player, slot.slot(), stack, data, lifetime, worldTime);
+        }
+    }
+
+    private static void fireEntitySlot(MinecraftServer server, EntitySlot slot, Entry entry) {
+        ServerLevel level = server.getLevel(slot.dimension());
+        if (level == null) {
+            return;
+        }
+
+        // unloaded entities are not looked up, they are scheduled again once the entity pass finds them
+        Entity entity = level.getEntity(slot.entityId());
+        if (entity == null || entity.isRemoved()) {
+            return;
+        }
+
+        Container inventory = EntitySpoilageIndex.getInventory(entity);
+        ItemStack stack;
+        if (entity instanceof ItemEntity itemEntity) {
+            stack = itemEntity.getItem();
+        } else if (inventory != null && slot.slot() < inventory.getContainerSize()) {
+            stack = inventory.getItem(slot.slot());
+        } else {
+            return;
+        }
+        if (!entry.holds(stack)) {
+            return;
+        }
+
+        long worldTime = level.getGameTime();
+        SpoilageData data = SpoilageCalculator.getInitializedData(stack);
+        long lifetime = SpoilageCalculator.getLifetime(stack);
+        if (data == null || data.isPaused() || lifetime <= 0) {
+            return;
+        }
+
+        // add the savings accrued since the last entity pass, as that pass would have
+        if (!data.hasOpenSegment()) {
+            SpoilageData updated = SpoilageCalculator.applyContainerPreservation(
+                    data, entry.combinedMultiplier(), entry.biomeMultiplier(), worldTime);
+            SpoilageCalculator.updateData(stack, data, updated);
+            data = updated;
+        }
+
+        ItemStack replacement = SpoilageProcessor.getRottenReplacement(stack,
+                SpoilageCalculator.getSpoilagePercent(data, lifetime, worldTime));
+        if (replacement == null) {
+            double rate = getRate(data, entry.combinedMultiplier());
+            schedule(slot, stack, data, lifetime, rate, entry.combinedMultiplier(), entry.biomeMultiplier(), worldTime);
+        } else if (entity instanceof ItemEntity itemEntity) {
+            itemEntity.setItem(replacement);
+        } else {
+            inventory.setItem(slot.slot(), replacement);
+        }
+    }
+
+    // forgets the scheduled replacements of a player that left
+    public static void forgetPlayer(ServerPlayer player) {
+        UUID playerId = player.getUUID();
+        scheduled.keySet().removeIf(location -> location instanceof PlayerSlot slot && slot.playerId().equals(playerId));
+        queue.removeIf(entry -> scheduled.get(entry.location()) != entry);
+    }
+
+    // forgets the scheduled replacements of a level that unloads
+    public static void onLevelUnload(ServerLevel level) {
+        ResourceKey<Level> dimension = level.dimension();
+        scheduled.keySet().removeIf(location -> location instanceof ContainerSlot slot && slot.dimension().equals(dimension)
+                || location instanceof EntitySlot entitySlot && entitySlot.dimension().equals(dimension));
+        queue.removeIf(entry -> scheduled.get(entry.location()) != entry);
+    }
+}
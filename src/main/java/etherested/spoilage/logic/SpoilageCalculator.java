@@ -25,23 +25,39 @@ public class SpoilageCalculator {
         return data;
     }
 
-    // gets the spoilage percentage (0.0 = fresh, 1.0 = rotten)
-    public static float getSpoilagePercent(ItemStack stack, long worldTime) {
-        if (!isSpoilable(stack)) {
-            return 0.0f;
+    // stores updated spoilage data on a stack, skipping the write when nothing changed;
+    // every set copies the stack's component patch if shared and makes menus compare the stack again
+    public static void updateData(ItemStack stack, SpoilageData current, SpoilageData updated) {
+        if (updated != current && !updated.equals(current)) {
+            stack.set(ModDataComponents.spoilageData(), updated);
         }
+    }
 
+    // gets the spoilage percentage (0.0 = fresh, 1.0 = rotten)
+    public static float getSpoilagePercent(ItemStack stack, long worldTime) {
         SpoilageData data = getInitializedData(stack);
         if (data == null) {
             return 0.0f;
         }
 
-        long lifetime = getLifetime(stack);
+        // one table lookup covers both the spoilable check and the lifetime
+        long lifetime = getLifetimeOrNotSpoilable(stack);
         if (lifetime <= 0) {
             return 0.0f;
         }
 
-        long remaining = getRemainingTicks(stack, worldTime);
+        return getSpoilagePercent(data, lifetime, worldTime);
+    }
+
+    // gets the spoilage percentage from already resolved data and lifetime
+    public static float getSpoilagePercent(SpoilageData data, long lifetime, long worldTime) {
+        return getSpoilagePercent(data, lifetime, worldTime, SpoilageConfig.getGlobalSpeedMultiplier());
+    }
+
+    // gets the spoilage percentage with a given global speed multiplier, without reading the config,
+    // so it can run off the server thread on snapshotted data
+    public static float getSpoilagePercent(SpoilageData data, long lifetime, long worldTime, double globalSpeedMultiplier) {
+        long remaining = getRemainingTicks(data, lifetime, worldTime, globalSpeedMultiplier);
         if (remaining <= 0) {
             return 1.0f;
         }
@@ -51,7 +67,8 @@ public class SpoilageCalculator {
 
     // gets the remaining ticks until fully spoiled
     public static long getRemainingTicks(ItemStack stack, long worldTime) {
-        if (!isSpoilable(stack)) {
+        long lifetime = getLifetimeOrNotSpoilable(stack);
+        if (lifetime == SpoilageItemRegistry.NOT_SPOILABLE) {
             return Long.MAX_VALUE;
         }
 
@@ -60,22 +77,95 @@ public class SpoilageCalculator {
             return Long.MAX_VALUE;
         }
 
+        return getRemainingTicks(data, lifetime, worldTime);
+    }
+
+    // gets the remaining ticks from already resolved data and lifetime, without any registry lookup
+    public static long getRemainingTicks(SpoilageData data, long lifetime, long worldTime) {
+        return getRemainingTicks(data, lifetime, worldTime, SpoilageConfig.getGlobalSpeedMultiplier());
+    }
+
+    // gets the remaining ticks with a given global speed multiplier, without reading the config
+    public static long getRemainingTicks(SpoilageData data, long lifetime, long worldTime, double globalSpeedMultiplier) {
         if (data.isPaused()) {
             return data.remainingLifetime();
         }
 
-        long lifetime = getLifetime(stack);
-        long elapsed = (long) ((worldTime - data.creationTime()) * data.preservationMultiplier() * SpoilageConfig.getGlobalSpeedMultiplier());
-        // subtract y-level savings from effective elapsed time
-        long effectiveElapsed = elapsed - data.yLevelSavedTicks();
+        long elapsed = (long) ((worldTime - data.creationTime()) * data.preservationMultiplier() * globalSpeedMultiplier);
+        // subtract y-level savings (including any open container rate segment) from effective elapsed time
+        long effectiveElapsed = elapsed - getTotalSavings(data, worldTime);
         return Math.max(0, lifetime - effectiveElapsed);
     }
 
+    // applies one round of container preservation to an item's data using the cumulative savings approach
+    // @param data initialized, unpaused spoilage data without an open rate segment
+    // @param combinedMultiplier the container's combined preservation multiplier
+    // @param biomeMultiplier the biome multiplier, stored for tooltip display
+    // @param worldTime current world time
+    // @return the updated data (the same instance if nothing changed)
+    public static SpoilageData applyContainerPreservation(SpoilageData data, float combinedMultiplier,
+                                                         float biomeMultiplier, long worldTime) {
+        return applyContainerPreservation(data, combinedMultiplier, biomeMultiplier, worldTime, getMaxSavingsElapsed());
+    }
+
+    // gets the longest time since an item's last pass that earns container savings (in ticks);
+    // normally three check intervals, widened while a producer's rounds are delayed by skipped rounds
+    // so a server that falls behind does not lose the savings of the skipped time
+    public static long getMaxSavingsElapsed() {
+        return SpoilageConfig.getCheckIntervalTicks() * 3L + SpoilageWorkScheduler.getLongestDelayedRoundGap();
+    }
+
+    // applies container preservation with a given savings cap, see getMaxSavingsElapsed();
+    // a pure function of its inputs, so it can also run off the server thread on snapshotted data
+    public static SpoilageData applyContainerPreservation(SpoilageData data, float combinedMultiplier,
+                                                         float biomeMultiplier, long worldTime, long maxElapsed) {
+        // skip if already processed this tick (item-level deduplication)
+        if (data.lastYLevelProcessTick() == worldTime) {
+            return data;
+        }
+
+        long lastProcessTick = data.lastYLevelProcessTick();
+
+        // first time processing - record the tick and multipliers, don't give savings yet
+        // this prevents giving savings for time the item wasn't actually in the container
+        if (lastProcessTick <= 0) {
+            return data.withContainerPreservation(combinedMultiplier, biomeMultiplier, worldTime);
+        }
+
+        // if combinedMultiplier is effectively 1.0, no effect in either direction - just update the multipliers for display
+        if (Math.abs(combinedMultiplier - 1.0f) < 0.001f) {
+            return data.withContainerPreservation(combinedMultiplier, biomeMultiplier, worldTime);
+        }
+
+        // calculate actual elapsed time since last processing
+        long elapsedSinceLastProcess = worldTime - lastProcessTick;
+
+        // sanity check - don't give savings for unreasonably long periods
+        // (e.g., if item was moved between containers or chunk was unloaded)
+        if (elapsedSinceLastProcess > maxElapsed) {
+            elapsedSinceLastProcess = maxElapsed;
+        }
+
+        // calculate ticks saved this interval due to preservation
+        // if combinedMultiplier is 0.5, items spoil at half speed, so we "give back" half the elapsed time
+        long ticksSaved = (long) (elapsedSinceLastProcess * (1.0f - combinedMultiplier));
+
+        // add savings to cumulative total and update multipliers for display
+        return data.withContainerSavings(ticksSaved, combinedMultiplier, biomeMultiplier, worldTime);
+    }
+
+    // gets the preservation savings of an item up to a world tick;
+    // the stored total plus whatever the open container rate segment has accrued so far
+    public static long getTotalSavings(SpoilageData data, long worldTime) {
+        return data.yLevelSavedTicks() + data.openSegmentSavings(worldTime);
+    }
+
     // gets the remaining ticks for display purposes (tooltips);
     // calculates prospective savings to prevent timer rollback between processing ticks;
     // shows real wall-clock time until spoiled at current preservation rate
     public static long getRemainingTicksForDisplay(ItemStack stack, long worldTime) {
-        if (!isSpoilable(stack)) {
+        long lifetime = getLifetimeOrNotSpoilable(stack);
+        if (lifetime == SpoilageItemRegistry.NOT_SPOILABLE) {
             return Long.MAX_VALUE;
         }
 
@@ -88,7 +178,6 @@ public class SpoilageCalculator {
             return data.remainingLifetime();
         }
 
-        long lifetime = getLifetime(stack);
         long elapsed = (long) ((worldTime - data.creationTime()) * data.preservationMultiplier() * SpoilageConfig.getGlobalSpeedMultiplier());
 
         // check if item is currently in a y-level container (recent processing)
@@ -96,14 +185,15 @@ public class SpoilageCalculator {
         long ticksSinceProcess = worldTime - data.lastYLevelProcessTick();
         int checkInterval = SpoilageConfig.getCheckIntervalTicks();
 
-        // only consider in container if recently processed (within 2x check interval)
+        // an open rate segment means the item sits in a container and its savings are already exact;
+        // otherwise only consider it in a container if recently processed (within 2x check interval)
+        boolean hasSegment = data.hasOpenSegment();
         boolean inYLevelContainer = yMultiplier < 1.0f
-                && data.lastYLevelProcessTick() > 0
-                && ticksSinceProcess < checkInterval * 2;
+                && (hasSegment || (data.lastYLevelProcessTick() > 0 && ticksSinceProcess < checkInterval * 2));
 
-        long totalSavings = data.yLevelSavedTicks();
+        long totalSavings = getTotalSavings(data, worldTime);
 
-        if (inYLevelContainer) {
+        if (inYLevelContainer && !hasSegment) {
             // calculate prospective savings since last processing
             // this prevents timer rollback between periodic updates
             long prospectiveSavings = (long) (ticksSinceProcess * (1.0f - yMultiplier));
@@ -122,19 +212,17 @@ public class SpoilageCalculator {
         return remainingTicks;
     }
 
-    // gets the total lifetime for an item based on its spoilage group
+    // gets the total lifetime for an item based on its spoilage group (0 if not spoilable)
     public static long getLifetime(ItemStack stack) {
-        SpoilableItemData itemData = getSpoilableData(stack);
-        if (itemData == null) {
-            return 0;
-        }
+        return Math.max(0, getLifetimeOrNotSpoilable(stack));
+    }
 
-        SpoilageGroupData groupData = SpoilageGroupRegistry.getGroup(itemData.spoilageGroup());
-        if (groupData == null) {
-            return SpoilageGroupData.DEFAULT_LIFETIME;
+    // gets the precomputed lifetime for an item, or SpoilageItemRegistry.NOT_SPOILABLE
+    private static long getLifetimeOrNotSpoilable(ItemStack stack) {
+        if (stack.isEmpty()) {
+            return SpoilageItemRegistry.NOT_SPOILABLE;
         }
-
-        return itemData.getLifetime(groupData);
+        return SpoilageItemRegistry.getLifetime(stack.getItem());
     }
 
     // checks if an item is spoilable via datapack configuration
@@ -196,7 +284,7 @@ public class SpoilageCalculator {
             return;
         }
 
-        stack.set(ModDataComponents.spoilageData(), SpoilageData.DEFAULT.initialize(worldTime));
+        stack.set(ModDataComponents.spoilageData(), SpoilageData.fresh(quantizeCreationTime(worldTime)));
     }
 
     // initializes spoilage with a specific starting percentage (for loot tables)
@@ -207,11 +295,19 @@ public class SpoilageCalculator {
 
         long lifetime = getLifetime(stack);
         long elapsed = (long) (lifetime * spoilagePercent);
-        long adjustedCreation = worldTime - elapsed;
+        long adjustedCreation = quantizeCreationTime(worldTime - elapsed);
 
         stack.set(ModDataComponents.spoilageData(), new SpoilageData(adjustedCreation, SpoilageData.NOT_PAUSED, false, 1.0f, 0L, 0L, 1.0f, 1.0f));
     }
 
+    // snaps a creation time down to the start of its bucket (creationTimeQuantizationTicks),
+    // so the same food initialized within one bucket gets equal data and stacks the vanilla way;
+    // items can appear older by up to one bucket, never younger
+    public static long quantizeCreationTime(long creationTime) {
+        int bucket = SpoilageConfig.getCreationTimeQuantizationTicks();
+        return bucket > 1 ? Math.floorDiv(creationTime, bucket) * bucket : creationTime;
+    }
+
     // gets the current preservation rate for display purposes;
     // returns 1.0 if no preservation, < 1.0 if preserved (e.g. 0.5 = 50% slower)
     public static float getPreservationRateForDisplay(ItemStack stack) {
@@ -232,16 +328,34 @@ public class SpoilageCalculator {
         initializeSpoilageWithPercent(result, worldTime, avgSpoilage);
     }
 
+    // gets the world tick at which an item crosses its next threshold the periodic passes act on:
+    // rotten (80%, changes contamination) or fully spoiled (100%, rotten replacement)
+    // @param rate effective lifetime consumed per world tick
+    public static long getNextThresholdTick(SpoilageData data, long lifetime, double rate, long worldTime) {
+        if (data.isPaused() || rate <= 0) {
+            return Long.MAX_VALUE;
+        }
+
+        // fully spoiled items have nothing left to cross
+        long remaining = getRemainingTicks(data, lifetime, worldTime);
+        if (remaining <= 0) {
+            return Long.MAX_VALUE;
+        }
+
+        long untilRotten = remaining - (long) (lifetime * 0.2f);
+        long untilNext = untilRotten > 0 && SpoilageConfig.isContaminationEnabled() ? untilRotten : remaining;
+
+        return worldTime + (long) Math.min(Math.ceil(untilNext / rate), Long.MAX_VALUE / 2);
+    }
+
     // counts inventory slots containing rotten food (80%+ spoilage)
     public static int countRottenSlots(Container container, long worldTime) {
         int count = 0;
         for (int i = 0; i < container.getContainerSize(); i++) {
             ItemStack stack = container.getItem(i);
-            if (!stack.isEmpty() && isSpoilable(stack)) {
-                float spoilage = getSpoilagePercent(stack, worldTime);
-                if (spoilage >= 0.8f) {
-                    count++;
-                }
+            // non-spoilable items report 0% so need no separate check
+            if (!stack.isEmpty() && getSpoilagePercent(stack, worldTime) >= 0.8f) {
+                count++;
             }
         }
         return count;
@@ -258,6 +372,12 @@ public class SpoilageCalculator {
 
     // calculates weighted average spoilage when merging two stacks
     public static SpoilageData mergeStacks(ItemStack existing, ItemStack incoming, long worldTime) {
+        return mergeStacks(existing, incoming, incoming.getCount(), worldTime);
+    }
+
+    // calculates weighted average spoilage when merging part of a stack into another
+    // @param incomingCount how many items of the incoming stack are merged
+    public static SpoilageData mergeStacks(ItemStack existing, ItemStack incoming, int incomingCount, long worldTime) {
         if (!isSpoilable(existing) || !isSpoilable(incoming)) {
             return SpoilageData.DEFAULT;
         }
@@ -266,14 +386,13 @@ public class SpoilageCalculator {
         float incomingSpoilage = getSpoilagePercent(incoming, worldTime);
 
         int existingCount = existing.getCount();
-        int incomingCount = incoming.getCount();
         int totalCount = existingCount + incomingCount;
 
         float weightedSpoilage = (existingSpoilage * existingCount + incomingSpoilage * incomingCount) / totalCount;
 
         long lifetime = getLifetime(existing);
         long elapsed = (long) (lifetime * weightedSpoilage);
-        long adjustedCreation = worldTime - elapsed;
+        long adjustedCreation = quantizeCreationTime(worldTime - elapsed);
 
         SpoilageData existingData = existing.get(ModDataComponents.spoilageData());
         float preservationMult = existingData != null ? existingData.preservationMultiplier() : 1.0f;
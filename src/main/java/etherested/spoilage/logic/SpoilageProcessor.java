@@ -4,6 +4,8 @@ import etherested.spoilage.component.ModDataComponents;
 import etherested.spoilage.component.SpoilageData;
 import etherested.spoilage.config.SpoilageConfig;
 import etherested.spoilage.data.SpoilableItemData;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.level.ServerPlayer;
@@ -13,10 +15,21 @@ import net.minecraft.world.item.Item;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.level.Level;
 
+import java.util.UUID;
+
 // processes spoilage periodically for player inventories and containers
 public class SpoilageProcessor {
 
-    // process spoilage for a player's inventory
+    // rotten slot count of each player's inventory from the previous pass
+    private static final Object2IntMap<UUID> rottenSlotsByPlayer = new Object2IntOpenHashMap<>();
+
+    static {
+        rottenSlotsByPlayer.defaultReturnValue(-1);
+    }
+
+    // process spoilage for a player's inventory;
+    // each stack's spoilage is computed once, contamination uses the rotten count of the previous pass;
+    // skipped entirely while the inventory is unchanged and no item reaches its next threshold
     public static void processPlayerInventory(ServerPlayer player) {
         if (!SpoilageConfig.isEnabled()) {
             return;
@@ -26,30 +39,102 @@ public class SpoilageProcessor {
         long worldTime = level.getGameTime();
         Inventory inventory = player.getInventory();
 
-        // count rotten slots for contamination penalty
-        int rottenSlots = SpoilageCalculator.countRottenSlots(inventory, worldTime);
-        float contaminationMultiplier = SpoilageCalculator.getContaminationMultiplier(rottenSlots);
+        if (PlayerInventoryTracker.isUnchanged(player.getUUID(), inventory, worldTime)) {
+            return;
+        }
+
+        // contamination penalty from rotten slots (counted directly on the first pass)
+        int previousRotten = rottenSlotsByPlayer.getInt(player.getUUID());
+        if (previousRotten < 0) {
+            previousRotten = SpoilageCalculator.countRottenSlots(inventory, worldTime);
+        }
+        float contaminationMultiplier = SpoilageCalculator.getContaminationMultiplier(previousRotten);
+        int rottenSlots = 0;
+        boolean penaltyTargets = false;
+        long nextEventTick = Long.MAX_VALUE;
 
         for (int i = 0; i < inventory.getContainerSize(); i++) {
             ItemStack stack = inventory.getItem(i);
-            if (stack.isEmpty() || !SpoilageCalculator.isSpoilable(stack)) {
+            if (stack.isEmpty()) {
+                continue;
+            }
+            if (!SpoilageCalculator.isSpoilable(stack)) {
+                // food packed into a shulker box or bundle spoils at the nested container rate
+                NestedContainerSpoilage.update(stack, worldTime);
                 continue;
             }
 
+            closeRateSegment(stack, worldTime);
             clearContainerYMultiplierIfNeeded(stack, worldTime);
+            processStack(stack, worldTime, level);
 
-            // apply contamination acceleration via negative savings
-            if (contaminationMultiplier > 1.0f) {
-                applyContaminationPenalty(stack, contaminationMultiplier, worldTime);
+            SpoilageData data = SpoilageCalculator.getInitializedData(stack);
+            long lifetime = SpoilageCalculator.getLifetime(stack);
+            if (data == null || lifetime <= 0) {
+                continue;
+            }
+            float spoilage = SpoilageCalculator.getSpoilagePercent(data, lifetime, worldTime);
+
+            // apply contamination acceleration via negative savings, skipping rotten/inedible items
+            boolean contaminated = contaminationMultiplier > 1.0f && !data.isPaused() && spoilage < 0.8f;
+            if (contaminated) {
+                SpoilageData penalized = applyContaminationPenalty(data, contaminationMultiplier);
+                SpoilageCalculator.updateData(stack, data, penalized);
+                spoilage = SpoilageCalculator.getSpoilagePercent(penalized, lifetime, worldTime);
             }
 
-            processStack(stack, worldTime, level);
-
-            ItemStack replacement = checkRottenReplacement(stack, worldTime);
+            // slots queued at their current rate are left to the queue; a contamination penalty
+            // moves the due tick earlier, so penalized items are checked and scheduled again
+            SpoilageData current = SpoilageCalculator.getInitializedData(stack);
+            boolean queued = !contaminated && RottenReplacementQueue.isPlayerSlotQueued(player, i, stack, current, lifetime);
+            ItemStack replacement = queued ? null : getRottenReplacement(stack, spoilage);
             if (replacement != null) {
+                // the replacement may be spoilable itself, process once more next time
                 inventory.setItem(i, replacement);
+                nextEventTick = worldTime;
+                continue;
+            }
+
+            if (spoilage >= 0.8f) {
+                rottenSlots++;
             }
+            if (!queued) {
+                RottenReplacementQueue.schedulePlayerSlot(player, i, stack, current, lifetime, worldTime);
+            }
+            nextEventTick = Math.min(nextEventTick, getNextEventTick(stack, lifetime, worldTime));
+            penaltyTargets |= spoilage < 0.8f && !data.isPaused();
         }
+
+        rottenSlotsByPlayer.put(player.getUUID(), rottenSlots);
+
+        // a contamination penalty accrues on every pass, so contaminated inventories are never skipped
+        if (penaltyTargets && SpoilageCalculator.getContaminationMultiplier(rottenSlots) > 1.0f) {
+            nextEventTick = worldTime;
+        }
+        PlayerInventoryTracker.record(player.getUUID(), inventory, nextEventTick);
+    }
+
+    // gets the world tick at which a stack in a player inventory next needs processing:
+    // when it turns rotten or spoils, or when its stale container Y-level multiplier is due to be cleared
+    private static long getNextEventTick(ItemStack stack, long lifetime, long worldTime) {
+        SpoilageData data = SpoilageCalculator.getInitializedData(stack);
+        if (data == null) {
+            return Long.MAX_VALUE;
+        }
+
+        double rate = data.preservationMultiplier() * SpoilageConfig.getGlobalSpeedMultiplier();
+        long next = SpoilageCalculator.getNextThresholdTick(data, lifetime, rate, worldTime);
+        if (data.currentContainerYMultiplier() != 1.0f) {
+            next = Math.min(next, data.lastYLevelProcessTick() + SpoilageConfig.getCheckIntervalTicks() * 2L + 1);
+        }
+        return next;
+    }
+
+    // forgets the rotten slot count and inventory summary of a player that left
+    public static void forgetPlayer(ServerPlayer player) {
+        rottenSlotsByPlayer.removeInt(player.getUUID());
+        PlayerInventoryTracker.forget(player.getUUID());
+        RottenReplacementQueue.forgetPlayer(player);
     }
 
     // process spoilage for a container (inventory, chest, etc.)
@@ -73,6 +158,15 @@ public class SpoilageProcessor {
         }
     }
 
+    // closes the container rate segment of an item that is now in a player inventory;
+    // savings stop accruing from this point, folded into the stored total
+    private static void closeRateSegment(ItemStack stack, long worldTime) {
+        SpoilageData data = SpoilageCalculator.getInitializedData(stack);
+        if (data != null && data.hasOpenSegment()) {
+            SpoilageCalculator.updateData(stack, data, data.closeSegment(worldTime));
+        }
+    }
+
     // clears the container Y-level multiplier if the item appears to have left a container;
     // this is detected by checking if the last Y-level processing was more than 2x the check interval ago
     private static void clearContainerYMultiplierIfNeeded(ItemStack stack, long worldTime) {
@@ -90,31 +184,15 @@ public class SpoilageProcessor {
         long ticksSince = worldTime - data.lastYLevelProcessTick();
         if (ticksSince > SpoilageConfig.getCheckIntervalTicks() * 2) {
             // item has left the container - reset multiplier immediately
-            stack.set(ModDataComponents.spoilageData(), data.clearContainerYMultiplier());
+            SpoilageCalculator.updateData(stack, data, data.clearContainerYMultiplier());
         }
     }
 
-    // applies food contamination penalty as negative savings;
-    // skips items already at rotten/inedible tier (80%+ spoilage)
-    private static void applyContaminationPenalty(ItemStack stack, float rottenMultiplier, long worldTime) {
-        SpoilageData data = SpoilageCalculator.getInitializedData(stack);
-        if (data == null || data.isPaused()) return;
-
-        // skip items already at rotten/inedible tier
-        float spoilage = SpoilageCalculator.getSpoilagePercent(stack, worldTime);
-        if (spoilage >= 0.8f) return;
-
+    // applies food contamination penalty as negative savings
+    private static SpoilageData applyContaminationPenalty(SpoilageData data, float rottenMultiplier) {
         // negative savings = checkInterval * (1.0 - multiplier) where multiplier > 1.0
         long negativeSavings = (long) (SpoilageConfig.getCheckIntervalTicks() * (1.0f - rottenMultiplier));
-
-        stack.set(ModDataComponents.spoilageData(), new SpoilageData(
-                data.creationTime(), data.remainingLifetime(), data.isPaused(),
-                data.preservationMultiplier(),
-                data.yLevelSavedTicks() + negativeSavings,
-                data.lastYLevelProcessTick(),
-                data.currentContainerYMultiplier(),
-                data.biomeMultiplier()
-        ));
+        return data.addYLevelSavings(negativeSavings, data.lastYLevelProcessTick());
     }
 
     // checks if a fully spoiled item should be replaced with another item
@@ -126,8 +204,15 @@ public class SpoilageProcessor {
             return null;
         }
 
+        return getRottenReplacement(stack, SpoilageCalculator.getSpoilagePercent(stack, worldTime));
+    }
+
+    // gets the replacement for a spoilable item whose spoilage was already computed in this pass
+    // @param stack the spoilable item stack to check
+    // @param spoilage its current spoilage percentage
+    // @return the replacement ItemStack, or null if no replacement needed
+    public static ItemStack getRottenReplacement(ItemStack stack, float spoilage) {
         // check if fully spoiled (100%)
-        float spoilage = SpoilageCalculator.getSpoilagePercent(stack, worldTime);
         if (spoilage < 1.0f) {
             return null;
         }
@@ -176,8 +261,9 @@ public class SpoilageProcessor {
             return;
         }
 
+        // close any open rate segment so paused time does not accrue savings
         long remaining = SpoilageCalculator.getRemainingTicks(stack, worldTime);
-        stack.set(ModDataComponents.spoilageData(), data.pause(remaining));
+        stack.set(ModDataComponents.spoilageData(), data.closeSegment(worldTime).pause(remaining));
     }
 
     // resume spoilage for items removed from preservation
@@ -226,7 +312,8 @@ public class SpoilageProcessor {
                     data.yLevelSavedTicks(),
                     data.lastYLevelProcessTick(),
                     data.currentContainerYMultiplier(),
-                    data.biomeMultiplier()
+                    data.biomeMultiplier(),
+                    data.rateSegmentStart()
             ));
         }
     }
@@ -0,0 +1,155 @@
+package etherested.spoilage.logic;
+
+import etherested.spoilage.config.SpoilageConfig;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.level.Level;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+// cooperative scheduler for periodic spoilage work (containers, player inventories, block sync);
+// producers submit small work units, which are run at the end of each server tick
+// until the configured time budget is used up; whatever is left carries over to the next tick;
+// a producer starts its next round only once its previous round has been fully processed,
+// so a server that cannot keep up runs rounds less often instead of piling up work
+public class SpoilageWorkScheduler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpoilageWorkScheduler.class);
+
+    // how often a falling-behind warning may be logged (in ticks)
+    private static final long BACKLOG_WARNING_INTERVAL = 6000;
+
+    private static final ArrayDeque<QueuedUnit> queue = new ArrayDeque<>();
+    private static final Object2IntMap<Source> pendingBySource = new Object2IntOpenHashMap<>();
+    private static long lastBacklogWarning = -BACKLOG_WARNING_INTERVAL;
+
+    // world tick each producer's current round began, and the producers that had to skip a round since
+    private static final Object2LongMap<Source> roundStarts = new Object2LongOpenHashMap<>();
+    private static final Set<Source> skippedRound = new HashSet<>();
+
+    // ticks between the last two round starts of producers whose last round started late,
+    // and the longest of them; read by the savings cap, possibly from a worker thread
+    private static final Object2LongMap<Source> delayedRoundGaps = new Object2LongOpenHashMap<>();
+    private static volatile long longestDelayedRoundGap;
+
+    // a piece of work; resolves levels and players from the server when run, so it never holds on to them
+    @FunctionalInterface
+    public interface WorkUnit {
+        void run(MinecraftServer server);
+    }
+
+    // identifies a producer, optionally per dimension
+    public record Source(String kind, @Nullable ResourceKey<Level> dimension) {
+    }
+
+    // checks if a producer may start a new round, i.e. nothing of its previous round is still queued;
+    // logs now and then when rounds have to be skipped
+    public static boolean tryBeginRound(Source source, long worldTime) {
+        if (!pendingBySource.containsKey(source)) {
+            beginRound(source, worldTime);
+            return true;
+        }
+
+        skippedRound.add(source);
+
+        if (worldTime - lastBacklogWarning >= BACKLOG_WARNING_INTERVAL) {
+            lastBacklogWarning = worldTime;
+            LOGGER.warn("Spoilage work is falling behind ({} units queued), skipping a round of {}; consider raising tickBudgetMicros",
+                    queue.size(), source.kind());
+        }
+        return false;
+    }
+
+    // gets the longest gap between two rounds of a producer whose last round started late because
+    // of skipped rounds, 0 when every producer keeps up; items processed by such a round were last
+    // processed up to this long (plus the time its units waited in the queue) before
+    public static long getLongestDelayedRoundGap() {
+        return longestDelayedRoundGap;
+    }
+
+    private static void beginRound(Source source, long worldTime) {
+        boolean started = roundStarts.containsKey(source);
+        long previousStart = roundStarts.put(source, worldTime);
+
+        if (skippedRound.remove(source) && started) {
+            delayedRoundGaps.put(source, worldTime - previousStart);
+        } else if (delayedRoundGaps.containsKey(source)) {
+            // back on time
+            delayedRoundGaps.removeLong(source);
+        } else {
+            return;
+        }
+        updateLongestDelayedRoundGap();
+    }
+
+    private static void updateLongestDelayedRoundGap() {
+        long longest = 0L;
+        for (long gap : delayedRoundGaps.values()) {
+            longest = Math.max(longest, gap);
+        }
+        longestDelayedRoundGap = longest;
+    }
+
+    public static void submit(Source source, WorkUnit unit) {
+        queue.add(new QueuedUnit(source, unit));
+        pendingBySource.mergeInt(source, 1, Integer::sum);
+    }
+
+    // runs queued work until the tick budget is spent; at least one unit runs every tick
+    public static void runPending(MinecraftServer server) {
+        if (queue.isEmpty()) return;
+
+        int budgetMicros = SpoilageConfig.getTickBudgetMicros();
+        long deadline = System.nanoTime() + budgetMicros * 1000L;
+
+        do {
+            QueuedUnit queued = queue.poll();
+            release(queued.source());
+            queued.unit().run(server);
+        } while (!queue.isEmpty() && (budgetMicros == 0 || System.nanoTime() < deadline));
+    }
+
+    // drops queued work and round state of a dimension, used when its level unloads
+    public static void cancel(ResourceKey<Level> dimension) {
+        Iterator<QueuedUnit> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            QueuedUnit queued = iterator.next();
+            if (dimension.equals(queued.source().dimension())) {
+                iterator.remove();
+                release(queued.source());
+            }
+        }
+
+        roundStarts.keySet().removeIf(source -> dimension.equals(source.dimension()));
+        skippedRound.removeIf(source -> dimension.equals(source.dimension()));
+        delayedRoundGaps.keySet().removeIf(source -> dimension.equals(source.dimension()));
+        updateLongestDelayedRoundGap();
+    }
+
+    // gets the number of queued work units
+    public static int getBacklog() {
+        return queue.size();
+    }
+
+    private static void release(Source source) {
+        int remaining = pendingBySource.getInt(source) - 1;
+        if (remaining <= 0) {
+            pendingBySource.removeInt(source);
+        } else {
+            pendingBySource.put(source, remaining);
+        }
+    }
+
+    private record QueuedUnit(Source source, WorkUnit unit) {
+    }
+}
@@ -0,0 +1,146 @@
+package etherested.spoilage.logic.preservation;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Block;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// server-side cache of container preservation info, per dimension and chunk;
+// a stationary container always gets the same Y-level, biome and container multipliers,
+// so providers are only queried again after a config change, a provider registration
+// or when a different block now stands at the position; entries are dropped when their block entity
+// is removed or when a lookup finds them stale, so broken containers do not keep entries until chunk unload;
+// position-only info for entities (dropped items, minecarts) is kept apart, per chunk section,
+// with a short expiry, and swept every entity round so positions entities passed through do not pile up;
+// only read and filled from the server thread
+public class PreservationInfoCache {
+
+    // bumped to drop every entry at once; may be called from the client thread (config screen),
+    // so entries are invalidated by generation instead of clearing the maps
+    private static volatile int generation;
+
+    // entries are grouped by ChunkPos.toLong(), then keyed by BlockPos.asLong()
+    private static final Map<ResourceKey<Level>, Long2ObjectMap<Long2ObjectMap<CachedInfo>>> CACHE = new HashMap<>();
+
+    // position-only entries, grouped by SectionPos.asLong(), then keyed by BlockPos.asLong()
+    private static final Map<ResourceKey<Level>, Long2ObjectMap<Long2ObjectMap<CachedInfo>>> POSITIONS = new HashMap<>();
+
+    // gets the cached info for a container position, or null if missing, stale or expired
+    @Nullable
+    public static PreservationManager.PreservationInfo get(ServerLevel level, BlockPos pos, Block block, long worldTime) {
+        Long2ObjectMap<Long2ObjectMap<CachedInfo>> chunks = CACHE.get(level.dimension());
+        if (chunks == null) {
+            return null;
+        }
+
+        long chunkKey = ChunkPos.asLong(pos);
+        Long2ObjectMap<CachedInfo> positions = chunks.get(chunkKey);
+        CachedInfo cached = positions != null ? positions.get(pos.asLong()) : null;
+        if (cached == null) {
+            return null;
+        }
+        if (cached.generation() != generation || cached.block() != block || worldTime >= cached.expiresAt()) {
+            // stale, the caller computes and stores fresh info or the position no longer needs any
+            positions.remove(pos.asLong());
+            if (positions.isEmpty()) {
+                chunks.remove(chunkKey);
+            }
+            return null;
+        }
+        return cached.info();
+    }
+
+    // stores the info for a container position until the given world tick
+    public static void put(ServerLevel level, BlockPos pos, Block block, PreservationManager.PreservationInfo info, long expiresAt) {
+        CACHE.computeIfAbsent(level.dimension(), k -> new Long2ObjectOpenHashMap<>())
+                .computeIfAbsent(ChunkPos.asLong(pos), k -> new Long2ObjectOpenHashMap<>())
+                .put(pos.asLong(), new CachedInfo(generation, block, info, expiresAt));
+    }
+
+    // gets the cached position-only info, or null if missing or expired
+    @Nullable
+    public static PreservationManager.PreservationInfo getPosition(ServerLevel level, BlockPos pos, long worldTime) {
+        Long2ObjectMap<Long2ObjectMap<CachedInfo>> sections = POSITIONS.get(level.dimension());
+        if (sections == null) {
+            return null;
+        }
+
+        Long2ObjectMap<CachedInfo> positions = sections.get(SectionPos.asLong(pos));
+        CachedInfo cached = positions != null ? positions.get(pos.asLong()) : null;
+        if (cached == null || cached.generation() != generation || worldTime >= cached.expiresAt()) {
+            // expired entries are left to the sweep
+            return null;
+        }
+        return cached.info();
+    }
+
+    // stores position-only info until the given world tick
+    public static void putPosition(ServerLevel level, BlockPos pos, PreservationManager.PreservationInfo info, long expiresAt) {
+        POSITIONS.computeIfAbsent(level.dimension(), k -> new Long2ObjectOpenHashMap<>())
+                .computeIfAbsent(SectionPos.asLong(pos), k -> new Long2ObjectOpenHashMap<>())
+                .put(pos.asLong(), new CachedInfo(generation, null, info, expiresAt));
+    }
+
+    // drops the expired or stale position-only entries of a level, called at the start of each entity round
+    public static void sweepPositions(ServerLevel level, long worldTime) {
+        Long2ObjectMap<Long2ObjectMap<CachedInfo>> sections = POSITIONS.get(level.dimension());
+        if (sections == null) {
+            return;
+        }
+
+        int currentGeneration = generation;
+        sections.values().removeIf(positions -> {
+            positions.values().removeIf(cached -> cached.generation() != currentGeneration || worldTime >= cached.expiresAt());
+            return positions.isEmpty();
+        });
+        if (sections.isEmpty()) {
+            POSITIONS.remove(level.dimension());
+        }
+    }
+
+    // forgets the cached info of a position, used when its container block entity is removed
+    public static void invalidate(ServerLevel level, BlockPos pos) {
+        Long2ObjectMap<Long2ObjectMap<CachedInfo>> chunks = CACHE.get(level.dimension());
+        if (chunks == null) {
+            return;
+        }
+
+        long chunkKey = ChunkPos.asLong(pos);
+        Long2ObjectMap<CachedInfo> positions = chunks.get(chunkKey);
+        if (positions != null && positions.remove(pos.asLong()) != null && positions.isEmpty()) {
+            chunks.remove(chunkKey);
+        }
+    }
+
+    // forgets the cached info of a chunk's containers
+    public static void invalidateChunk(ServerLevel level, long chunkKey) {
+        Long2ObjectMap<Long2ObjectMap<CachedInfo>> chunks = CACHE.get(level.dimension());
+        if (chunks != null) {
+            chunks.remove(chunkKey);
+        }
+    }
+
+    // forgets the cached info of a level
+    public static void invalidateLevel(ServerLevel level) {
+        CACHE.remove(level.dimension());
+        POSITIONS.remove(level.dimension());
+    }
+
+    // forgets everything, used when multipliers may have changed (config change, new provider)
+    public static void invalidateAll() {
+        generation++;
+    }
+
+    // block the info was computed for (null for position-only info), so a replaced block is not served stale info
+    private record CachedInfo(int generation, @Nullable Block block, PreservationManager.PreservationInfo info, long expiresAt) {
+    }
+}
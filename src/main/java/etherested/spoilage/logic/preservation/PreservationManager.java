@@ -4,7 +4,9 @@ import org.slf4j.LoggerFactory;
 import etherested.spoilage.config.SpoilageConfig;
 import etherested.spoilage.logic.ContainerSpoilageRates;
 import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.entity.BlockEntity;
 import org.slf4j.Logger;
 
@@ -18,6 +20,15 @@ public class PreservationManager {
     private static final Logger LOGGER = LoggerFactory.getLogger(PreservationManager.class);
     private static final List<PreservationProvider> providers = new ArrayList<>();
     private static boolean initialized = false;
+    private static boolean hasCustomProviders = false;
+
+    // how long cached container info is kept when a provider may change over time
+    // (Cold Sweat temperatures, custom providers); static providers are cached until invalidated
+    private static final long DYNAMIC_CACHE_TICKS = 1200;
+
+    // how long cached position-only info for entities is kept, whatever the providers;
+    // entities move, so these entries must not outlive the positions they are actually at
+    private static final long POSITION_CACHE_TICKS = 400;
 
     // initializes the preservation system;
     // should be called during mod initialization
@@ -34,6 +45,10 @@ public class PreservationManager {
         ColdSweatIntegration.init();
         providers.add(new ColdSweatIntegration());
 
+        // container rates and cached multipliers are computed from config values
+        SpoilageConfig.addChangeListener(ContainerSpoilageRates::invalidate);
+        SpoilageConfig.addChangeListener(PreservationInfoCache::invalidateAll);
+
         initialized = true;
         LOGGER.info("Preservation manager initialized with {} providers", providers.size());
     }
@@ -44,6 +59,8 @@ public class PreservationManager {
     public static void registerProvider(PreservationProvider provider) {
         ensureInitialized();
         providers.add(provider);
+        hasCustomProviders = true;
+        PreservationInfoCache.invalidateAll();
         LOGGER.info("Registered custom preservation provider: {}", provider.getId());
     }
 
@@ -140,6 +157,47 @@ public class PreservationManager {
         return posInfo.withContainer(containerMultiplier);
     }
 
+    // gets preservation info for a container, reusing the info computed for its position earlier;
+    // used by the periodic container pass so stationary containers do not query the providers again
+    // @param level the server level
+    // @param pos the block position
+    // @param blockEntity the container block entity
+    // @return a PreservationInfo containing all individual multipliers
+    public static PreservationInfo getCachedContainerPreservationInfo(ServerLevel level, BlockPos pos, BlockEntity blockEntity) {
+        long worldTime = level.getGameTime();
+        Block block = blockEntity.getBlockState().getBlock();
+
+        PreservationInfo info = PreservationInfoCache.get(level, pos, block, worldTime);
+        if (info == null) {
+            info = getContainerPreservationInfo(level, pos, blockEntity);
+            long expiresAt = hasDynamicProviders() ? worldTime + DYNAMIC_CACHE_TICKS : Long.MAX_VALUE;
+            PreservationInfoCache.put(level, pos, block, info, expiresAt);
+        }
+        return info;
+    }
+
+    // gets preservation info for a position without a container, reusing the info computed for it earlier;
+    // used by the entity pass, whose dropped items and minecarts mostly stay at the same few positions
+    // @param level the server level
+    // @param pos the block position
+    // @return a PreservationInfo containing all individual multipliers
+    public static PreservationInfo getCachedPreservationInfo(ServerLevel level, BlockPos pos) {
+        long worldTime = level.getGameTime();
+
+        PreservationInfo info = PreservationInfoCache.getPosition(level, pos, worldTime);
+        if (info == null) {
+            info = getPreservationInfo(level, pos);
+            PreservationInfoCache.putPosition(level, pos, info, worldTime + POSITION_CACHE_TICKS);
+        }
+        return info;
+    }
+
+    // checks if any enabled provider can return a different multiplier for the same position later
+    private static boolean hasDynamicProviders() {
+        return hasCustomProviders
+                || (ColdSweatIntegration.isAvailable() && SpoilageConfig.isColdSweatIntegrationEnabled());
+    }
+
     private static void ensureInitialized() {
         if (!initialized) {
             init();
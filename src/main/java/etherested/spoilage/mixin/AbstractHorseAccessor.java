@@ -0,0 +1,13 @@
+package etherested.spoilage.mixin;
+
+import net.minecraft.world.SimpleContainer;
+import net.minecraft.world.entity.animal.horse.AbstractHorse;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+// accessor mixin to access the inventory of horses, donkeys, mules and llamas
+@Mixin(AbstractHorse.class)
+public interface AbstractHorseAccessor {
+    @Accessor("inventory")
+    SimpleContainer getHorseInventory();
+}
@@ -0,0 +1,23 @@
+package etherested.spoilage.mixin;
+
+import etherested.spoilage.data.EntitySpoilageIndex;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.Container;
+import net.minecraft.world.entity.animal.horse.AbstractHorse;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+// reports inventory changes of horses, donkeys, mules and llamas to the entity spoilage index
+@Mixin(AbstractHorse.class)
+public abstract class AbstractHorseMixin {
+
+    @Inject(method = "containerChanged(Lnet/minecraft/world/Container;)V", at = @At("TAIL"))
+    private void spoilage$onContainerChanged(Container container, CallbackInfo ci) {
+        AbstractHorse self = (AbstractHorse) (Object) this;
+        if (self.level() instanceof ServerLevel serverLevel && EntitySpoilageIndex.holdsSpoilable(self)) {
+            EntitySpoilageIndex.onEntityChanged(serverLevel, self);
+        }
+    }
+}
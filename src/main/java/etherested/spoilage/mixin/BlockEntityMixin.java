@@ -0,0 +1,47 @@
+package etherested.spoilage.mixin;
+
+import etherested.spoilage.data.ContainerSpoilageIndex;
+import etherested.spoilage.logic.preservation.PreservationInfoCache;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.Container;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+// reports container block entity changes to the container spoilage index;
+// setChanged() is called whenever a container's contents are modified,
+// setRemoved() when the block entity is broken, replaced or unloaded
+@Mixin(BlockEntity.class)
+public abstract class BlockEntityMixin {
+
+    @Shadow
+    protected Level level;
+
+    @Shadow
+    public abstract BlockPos getBlockPos();
+
+    @Inject(method = "setChanged()V", at = @At("HEAD"))
+    private void spoilage$onSetChanged(CallbackInfo ci) {
+        if (!((Object) this instanceof Container)) return;
+
+        // block entities can be changed off-thread during world generation, those are picked up on chunk load
+        if (level instanceof ServerLevel serverLevel && serverLevel.getServer().isSameThread()) {
+            ContainerSpoilageIndex.onContainerChanged(serverLevel, getBlockPos());
+        }
+    }
+
+    @Inject(method = "setRemoved()V", at = @At("HEAD"))
+    private void spoilage$onSetRemoved(CallbackInfo ci) {
+        if (!((Object) this instanceof Container)) return;
+
+        // drop the cached preservation info right away instead of waiting for the chunk to unload
+        if (level instanceof ServerLevel serverLevel && serverLevel.getServer().isSameThread()) {
+            PreservationInfoCache.invalidate(serverLevel, getBlockPos());
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package etherested.spoilage.mixin;
+
+import etherested.spoilage.data.EntitySpoilageIndex;
+import etherested.spoilage.logic.SpoilageCalculator;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.vehicle.AbstractMinecartContainer;
+import net.minecraft.world.entity.vehicle.ChestBoat;
+import net.minecraft.world.item.ItemStack;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+// reports food put into container minecarts and chest boats to the entity spoilage index;
+// their setChanged() does nothing, so item insertion (players, hoppers) is caught at setItem
+@Mixin({AbstractMinecartContainer.class, ChestBoat.class})
+public abstract class ContainerEntityMixin {
+
+    @Inject(method = "setItem(ILnet/minecraft/world/item/ItemStack;)V", at = @At("TAIL"))
+    private void spoilage$onSetItem(int slot, ItemStack stack, CallbackInfo ci) {
+        if (stack.isEmpty() || !SpoilageCalculator.isSpoilable(stack)) return;
+
+        Entity self = (Entity) (Object) this;
+        if (self.level() instanceof ServerLevel serverLevel) {
+            EntitySpoilageIndex.onEntityChanged(serverLevel, self);
+        }
+    }
+}
@@ -2,7 +2,6 @@ package etherested.spoilage.mixin;
 
 import etherested.spoilage.config.SpoilageConfig;
 import etherested.spoilage.data.ChunkSpoilageCapability;
-import etherested.spoilage.data.ChunkSpoilageData;
 import net.minecraft.core.BlockPos;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.util.RandomSource;
@@ -68,15 +67,14 @@ public abstract class CropBlockMixin {
             return;
         }
 
-        ChunkSpoilageData.BlockSpoilageEntry entry = ChunkSpoilageCapability.getBlockSpoilage(level, pos);
-        if (entry == null || entry.type() != ChunkSpoilageData.BlockType.CROP || entry.initialSpoilage() <= 0) {
+        // reads the tracked entry in place, this runs for every crop random tick
+        long recoveryPeriod = SpoilageConfig.getStaleSeedRecoveryTicks();
+        float recovering = ChunkSpoilageCapability.getRecoveringCropSpoilage(level, pos, recoveryPeriod);
+        if (recovering < 0) {
+            // not a growing crop with seed spoilage
             return;
         }
 
-        long worldTime = level.getGameTime();
-        long recoveryPeriod = SpoilageConfig.getStaleSeedRecoveryTicks();
-        float recovering = entry.getRecoveringSpoilage(worldTime, recoveryPeriod);
-
         if (recovering > 0) {
             // still recovering — block vanilla growth
             ci.cancel();
@@ -104,16 +102,15 @@ public abstract class CropBlockMixin {
     // crops stay fresh when fully grown, then rot and regress through growth stages
     @Unique
     private void spoilage$handleCropLifecycle(BlockState state, ServerLevel level, BlockPos pos) {
-        ChunkSpoilageData.BlockSpoilageEntry entry = ChunkSpoilageCapability.getBlockSpoilage(level, pos);
+        boolean fullyGrown = ChunkSpoilageCapability.isCropFullyGrown(level, pos);
         int currentAge = getAge(state);
         int maxAge = getMaxAge();
-        long worldTime = level.getGameTime();
 
         // check if crop just became fully grown
         if (isMaxAge(state)) {
             // only mark fully grown if age equals max age
             if (currentAge >= maxAge) {
-                if (entry == null || !entry.isFullyGrown()) {
+                if (!fullyGrown) {
                     // mark the crop as fully grown, fresh timer starts now
                     // spoilage is reset to 0% (100% fresh) at maturity
                     ChunkSpoilageCapability.markCropFullyGrown(level, pos);
@@ -124,7 +121,7 @@ public abstract class CropBlockMixin {
             // crop is fully grown, check if it should regress due to rot
             long freshPeriod = SpoilageConfig.getCropFreshPeriodTicks();
             long rotPeriod = SpoilageConfig.getCropRotPeriodTicks();
-            float rotProgress = entry.getRotProgress(worldTime, freshPeriod, rotPeriod);
+            float rotProgress = ChunkSpoilageCapability.getCropRotProgress(level, pos, freshPeriod, rotPeriod);
 
             if (rotProgress > 0) {
                 // calculate target age based on rot progress
@@ -141,12 +138,12 @@ public abstract class CropBlockMixin {
         }
 
         // crop is not at max age, check if it's a rotting crop that regressed
-        if (entry != null && entry.isFullyGrown()) {
+        if (fullyGrown) {
             // only regress if crop actually has rot progress
             // this prevents premature rot for crops that were incorrectly marked as fully grown
             long freshPeriod = SpoilageConfig.getCropFreshPeriodTicks();
             long rotPeriod = SpoilageConfig.getCropRotPeriodTicks();
-            float rotProgress = entry.getRotProgress(worldTime, freshPeriod, rotPeriod);
+            float rotProgress = ChunkSpoilageCapability.getCropRotProgress(level, pos, freshPeriod, rotPeriod);
 
             // only regress if already rotting, fresh crops at non-max age should not process
             if (rotProgress > 0) {
@@ -158,7 +155,7 @@ public abstract class CropBlockMixin {
                 }
             }
         }
-        // if entry is null, the crop is still growing naturally
+        // if there is no fully grown entry, the crop is still growing naturally
         // entry will be created when planted via BlockItemMixin
     }
 }
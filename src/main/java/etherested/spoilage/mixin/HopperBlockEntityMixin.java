@@ -0,0 +1,93 @@
+package etherested.spoilage.mixin;
+
+import etherested.spoilage.component.ModDataComponents;
+import etherested.spoilage.component.SpoilageData;
+import etherested.spoilage.config.SpoilageConfig;
+import etherested.spoilage.logic.SpoilageCalculator;
+import net.minecraft.core.Direction;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.Container;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.entity.HopperBlockEntity;
+import org.jetbrains.annotations.Nullable;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+// merges food moved by hoppers into a partial stack of the same food with different spoilage (hopperSpoilageMerging);
+// vanilla only stacks items with identical components, so food fragments into many partial stacks;
+// the merged stack gets the weighted average spoilage, as when merging stacks by hand
+@Mixin(HopperBlockEntity.class)
+public abstract class HopperBlockEntityMixin {
+
+    @Shadow
+    private static boolean canPlaceItemInContainer(Container container, ItemStack stack, int slot, @Nullable Direction direction) {
+        throw new AssertionError();
+    }
+
+    @Inject(method = "tryMoveInItem(Lnet/minecraft/world/Container;Lnet/minecraft/world/Container;Lnet/minecraft/world/item/ItemStack;ILnet/minecraft/core/Direction;)Lnet/minecraft/world/item/ItemStack;",
+            at = @At("HEAD"), cancellable = true)
+    private static void spoilage$mergeSpoilable(@Nullable Container source, Container destination, ItemStack stack,
+                                                int slot, @Nullable Direction direction, CallbackInfoReturnable<ItemStack> cir) {
+        if (!SpoilageConfig.isEnabled() || !SpoilageConfig.isHopperSpoilageMergingEnabled()) return;
+
+        ItemStack existing = destination.getItem(slot);
+        if (existing.isEmpty() || stack.isEmpty() || !ItemStack.isSameItem(existing, stack)) return;
+
+        // identical stacks merge the vanilla way
+        if (ItemStack.isSameItemSameComponents(existing, stack)) return;
+        if (!SpoilageCalculator.isSpoilable(existing) || !spoilage$differOnlyInSpoilage(existing, stack)) return;
+
+        // double chests are not block entities themselves, the hopper on the other side is
+        Long worldTime = spoilage$getServerTime(destination);
+        if (worldTime == null && source != null) {
+            worldTime = spoilage$getServerTime(source);
+        }
+        if (worldTime == null) return;
+
+        // fully spoiled food is never merged, as when merging by hand
+        if (SpoilageCalculator.getSpoilagePercent(existing, worldTime) >= 1.0f
+                || SpoilageCalculator.getSpoilagePercent(stack, worldTime) >= 1.0f) {
+            return;
+        }
+
+        int moved = Math.min(stack.getCount(), existing.getMaxStackSize() - existing.getCount());
+        if (moved <= 0 || !canPlaceItemInContainer(destination, stack, slot, direction)) return;
+
+        SpoilageData merged = SpoilageCalculator.mergeStacks(existing, stack, moved, worldTime);
+        existing.grow(moved);
+        existing.set(ModDataComponents.spoilageData(), merged);
+        stack.shrink(moved);
+        destination.setChanged();
+
+        cir.setReturnValue(stack);
+    }
+
+    // checks whether two stacks are identical except for their spoilage data component
+    @Unique
+    private static boolean spoilage$differOnlyInSpoilage(ItemStack first, ItemStack second) {
+        ItemStack firstCopy = first.copyWithCount(1);
+        ItemStack secondCopy = second.copyWithCount(1);
+        firstCopy.remove(ModDataComponents.spoilageData());
+        secondCopy.remove(ModDataComponents.spoilageData());
+        return ItemStack.isSameItemSameComponents(firstCopy, secondCopy);
+    }
+
+    // gets the game time of the server level a container is in, or null when it is not on the server
+    @Unique
+    @Nullable
+    private static Long spoilage$getServerTime(Container container) {
+        if (container instanceof BlockEntity blockEntity && blockEntity.getLevel() instanceof ServerLevel level) {
+            return level.getGameTime();
+        }
+        if (container instanceof Entity entity && entity.level() instanceof ServerLevel level) {
+            return level.getGameTime();
+        }
+        return null;
+    }
+}
@@ -111,7 +111,7 @@ public abstract class InventoryMixin {
 
         long lifetime = SpoilageCalculator.getLifetime(existing);
         long elapsed = (long) (lifetime * weightedSpoilage);
-        long adjustedCreation = worldTime - elapsed;
+        long adjustedCreation = SpoilageCalculator.quantizeCreationTime(worldTime - elapsed);
 
         SpoilageData existingData = existing.get(ModDataComponents.spoilageData());
         float preservationMult = existingData != null ? existingData.preservationMultiplier() : 1.0f;
@@ -0,0 +1,36 @@
+package etherested.spoilage.mixin;
+
+//? if fabric {
+/*import etherested.spoilage.network.BlockSpoilageNetworkHandler;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.server.network.PlayerChunkSender;
+import net.minecraft.server.network.ServerGamePacketListenerImpl;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.chunk.LevelChunk;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+// Fabric-only mixin to follow which chunks a player's client holds;
+// replaces NeoForge's ChunkWatchEvent for block spoilage sync
+@Mixin(PlayerChunkSender.class)
+public class PlayerChunkSenderMixin {
+
+    // after the chunk itself is sent, so the client has it before its spoilage arrives
+    @Inject(method = "sendChunk", at = @At("TAIL"))
+    private static void spoilage$onSendChunk(ServerGamePacketListenerImpl packetListener, ServerLevel level,
+                                             LevelChunk chunk, CallbackInfo ci) {
+        BlockSpoilageNetworkHandler.onChunkWatched(packetListener.player, level, chunk.getPos());
+    }
+
+    @Inject(method = "dropChunk", at = @At("HEAD"))
+    private void spoilage$onDropChunk(ServerPlayer player, ChunkPos chunkPos, CallbackInfo ci) {
+        BlockSpoilageNetworkHandler.onChunkUnwatched(player, player.serverLevel(), chunkPos);
+    }
+}
+*///?} else {
+// NeoForge stub — PlayerChunkSenderMixin is Fabric-only
+public class PlayerChunkSenderMixin {}
+//?}
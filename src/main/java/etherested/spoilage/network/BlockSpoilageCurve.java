@@ -0,0 +1,40 @@
+package etherested.spoilage.network;
+
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.util.Mth;
+
+// the shown spoilage of a tracked block as a function of game time:
+// starts at base at startTime and changes by perTick every tick after it (negative for recovering crops),
+// clamped to 0.0-1.0; values at or below threshold are not shown;
+// the server resolves lifetimes and config periods into these fields, so the client needs neither
+public record BlockSpoilageCurve(long startTime, float base, float perTick, float threshold) {
+
+    // sent to clear a client's entry
+    public static final BlockSpoilageCurve NONE = constant(0.0f);
+
+    public static final StreamCodec<FriendlyByteBuf, BlockSpoilageCurve> STREAM_CODEC = StreamCodec.composite(
+            ByteBufCodecs.VAR_LONG, BlockSpoilageCurve::startTime,
+            ByteBufCodecs.FLOAT, BlockSpoilageCurve::base,
+            ByteBufCodecs.FLOAT, BlockSpoilageCurve::perTick,
+            ByteBufCodecs.FLOAT, BlockSpoilageCurve::threshold,
+            BlockSpoilageCurve::new
+    );
+
+    // a value that does not change over time
+    public static BlockSpoilageCurve constant(float spoilage) {
+        return new BlockSpoilageCurve(0L, spoilage, 0.0f, 0.0f);
+    }
+
+    // gets the shown spoilage at a game time, or 0.0 if it is not shown
+    public float valueAt(long worldTime) {
+        float value = Mth.clamp(base + (worldTime - startTime) * perTick, 0.0f, 1.0f);
+        return value > threshold ? value : 0.0f;
+    }
+
+    // checks if the value can never be shown (a constant at or below its threshold)
+    public boolean isNeverShown() {
+        return perTick == 0.0f && base <= threshold;
+    }
+}
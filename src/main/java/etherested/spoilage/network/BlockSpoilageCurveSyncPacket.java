@@ -0,0 +1,54 @@
+package etherested.spoilage.network;
+
+import etherested.spoilage.client.BlockSpoilageClientCache;
+import net.minecraft.core.BlockPos;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+
+//? if neoforge {
+import net.neoforged.neoforge.network.handling.IPayloadContext;
+//?}
+
+import java.util.HashMap;
+import java.util.Map;
+
+
+// network packet for syncing block spoilage curves from server to client (blockSpoilageExtrapolation);
+// the client computes the current spoilage from each curve, so a block is only sent again when its curve changes
+public record BlockSpoilageCurveSyncPacket(Map<BlockPos, BlockSpoilageCurve> curves) implements CustomPacketPayload {
+
+    public static final CustomPacketPayload.Type<BlockSpoilageCurveSyncPacket> TYPE =
+            new CustomPacketPayload.Type<>(ResourceLocation.fromNamespaceAndPath("spoilage", "block_spoilage_curve_sync"));
+
+    public static final StreamCodec<FriendlyByteBuf, BlockSpoilageCurveSyncPacket> STREAM_CODEC = StreamCodec.composite(
+            ByteBufCodecs.map(
+                    HashMap::new,
+                    BlockPos.STREAM_CODEC,
+                    BlockSpoilageCurve.STREAM_CODEC
+            ),
+            BlockSpoilageCurveSyncPacket::curves,
+            BlockSpoilageCurveSyncPacket::new
+    );
+
+    @Override
+    public Type<? extends CustomPacketPayload> type() {
+        return TYPE;
+    }
+
+    // shared client handler logic for both loaders
+    public static void handleClientShared(BlockSpoilageCurveSyncPacket packet) {
+        for (Map.Entry<BlockPos, BlockSpoilageCurve> entry : packet.curves().entrySet()) {
+            BlockSpoilageClientCache.updateCurve(entry.getKey(), entry.getValue());
+        }
+    }
+
+    //? if neoforge {
+    // NeoForge packet handler
+    public static void handleClientNeoForge(BlockSpoilageCurveSyncPacket packet, IPayloadContext context) {
+        context.enqueueWork(() -> handleClientShared(packet));
+    }
+    //?}
+}
@@ -2,20 +2,28 @@ package etherested.spoilage.network;
 
 import etherested.spoilage.Spoilage;
 import etherested.spoilage.config.SpoilageConfig;
+import etherested.spoilage.data.BlockSpoilageEntryMap;
 import etherested.spoilage.data.ChunkSpoilageCapability;
 import etherested.spoilage.data.ChunkSpoilageData;
 import etherested.spoilage.data.SpoilageItemRegistry;
-import etherested.spoilage.logic.SpoilageCalculator;
+import etherested.spoilage.logic.SpoilageWorkScheduler;
+import it.unimi.dsi.fastutil.longs.Long2FloatMap;
+import it.unimi.dsi.fastutil.longs.Long2FloatOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
 import net.minecraft.core.BlockPos;
-import net.minecraft.core.registries.BuiltInRegistries;
-import net.minecraft.resources.ResourceLocation;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
-import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.CropBlock;
 import net.minecraft.world.level.block.state.BlockState;
+import org.jetbrains.annotations.Nullable;
 
 //? if neoforge {
 import net.neoforged.bus.api.SubscribeEvent;
@@ -33,10 +41,15 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 // handles network synchronization of block spoilage data to clients;
 // syncs spoilage data when player starts watching a chunk
-// or during periodic updates for active spoilage changes
+// or during periodic updates for active spoilage changes;
+// every tracked block is described by a BlockSpoilageCurve, and the server remembers what each player's
+// client holds per chunk, so periodic updates only carry entries that changed, plus removals;
+// by default clients get fixed values, sent again when their quantized (one byte) value changes;
+// with blockSpoilageExtrapolation clients get the curves, sent again only when a curve itself changes
 //? if neoforge {
 @EventBusSubscriber(modid = Spoilage.MODID)
 //?}
@@ -44,22 +57,30 @@ public class BlockSpoilageNetworkHandler {
 
     // how often to sync spoilage updates (in ticks)
     private static final int SYNC_INTERVAL = 100; // 5 seconds
-    private static int tickCounter = 0;
+
+    // crops are only tinted above this spoilage
+    private static final float CROP_DISPLAY_THRESHOLD = 0.05f;
+
+    // what each player's client currently holds, fixed values as constant curves;
+    // only touched on the server thread
+    private static final Map<UUID, SentState> SENT = new HashMap<>();
+
+    // single-block updates queued during the current tick, by dimension, ChunkPos.toLong() and BlockPos.asLong()
+    private static final Map<ResourceKey<Level>, Long2ObjectMap<Long2FloatMap>> PENDING = new HashMap<>();
+
+    // players watching each chunk, by dimension and ChunkPos.toLong();
+    // kept from the watch/unwatch hooks so sync rounds don't scan every player per chunk
+    private static final Map<ResourceKey<Level>, Long2ObjectMap<List<ServerPlayer>>> WATCHERS = new HashMap<>();
 
     //? if neoforge {
-    // syncs block spoilage data when a player starts watching a chunk
     @SubscribeEvent
     public static void onChunkWatch(ChunkWatchEvent.Watch event) {
-        if (!SpoilageConfig.isEnabled()) return;
-
-        ServerPlayer player = event.getPlayer();
-        ServerLevel level = event.getLevel();
-        ChunkPos chunkPos = event.getPos();
+        onChunkWatched(event.getPlayer(), event.getLevel(), event.getPos());
+    }
 
-        Map<BlockPos, Float> chunkSpoilage = getChunkSpoilageData(level, chunkPos);
-        if (!chunkSpoilage.isEmpty()) {
-            PacketDistributor.sendToPlayer(player, new BlockSpoilageSyncPacket(chunkSpoilage));
-        }
+    @SubscribeEvent
+    public static void onChunkUnwatch(ChunkWatchEvent.UnWatch event) {
+        onChunkUnwatched(event.getPlayer(), event.getLevel(), event.getPos());
     }
 
     @SubscribeEvent
@@ -82,8 +103,39 @@ public class BlockSpoilageNetworkHandler {
     }
     *///?}
 
+    // syncs block spoilage data when a player starts watching a chunk (loader-agnostic);
+    // called from ChunkWatchEvent.Watch on neoforge and PlayerChunkSenderMixin on fabric
+    public static void onChunkWatched(ServerPlayer player, ServerLevel level, ChunkPos chunkPos) {
+        List<ServerPlayer> watchers = WATCHERS.computeIfAbsent(level.dimension(), k -> new Long2ObjectOpenHashMap<>())
+                .computeIfAbsent(chunkPos.toLong(), k -> new ArrayList<>());
+        if (!watchers.contains(player)) watchers.add(player);
+
+        // the client starts from an empty chunk, so nothing sent earlier counts anymore
+        forgetChunk(player, level.dimension(), chunkPos.toLong());
+        if (!SpoilageConfig.isEnabled()) return;
+
+        ChunkSpoilageData data = ChunkSpoilageCapability.getChunkData(level, chunkPos);
+        if (data == null) return;
+
+        long worldTime = level.getGameTime();
+        sendChanges(player, level.dimension(), chunkPos.toLong(), collectCurves(level, data, worldTime, null), worldTime);
+    }
+
+    // the client drops its cached data for chunks it unloads (loader-agnostic);
+    // called from ChunkWatchEvent.UnWatch on neoforge and PlayerChunkSenderMixin on fabric
+    public static void onChunkUnwatched(ServerPlayer player, ServerLevel level, ChunkPos chunkPos) {
+        Long2ObjectMap<List<ServerPlayer>> chunks = WATCHERS.get(level.dimension());
+        if (chunks != null) {
+            List<ServerPlayer> watchers = chunks.get(chunkPos.toLong());
+            if (watchers != null && watchers.remove(player) && watchers.isEmpty()) {
+                chunks.remove(chunkPos.toLong());
+            }
+        }
+        forgetChunk(player, level.dimension(), chunkPos.toLong());
+    }
+
     // sends a packet to a player (loader-agnostic)
-    private static void sendToPlayer(ServerPlayer player, BlockSpoilageSyncPacket packet) {
+    private static void sendToPlayer(ServerPlayer player, CustomPacketPayload packet) {
         //? if neoforge {
         PacketDistributor.sendToPlayer(player, packet);
         //?} else {
@@ -94,206 +146,317 @@ public class BlockSpoilageNetworkHandler {
     private static void handleServerTick(ServerLevel serverLevel) {
         if (!SpoilageConfig.isEnabled()) return;
 
-        tickCounter++;
-        if (tickCounter < SYNC_INTERVAL) return;
-        tickCounter = 0;
+        long worldTime = serverLevel.getGameTime();
+        if (worldTime % SYNC_INTERVAL != 0) return;
 
-        ChunkSpoilageData data = ChunkSpoilageCapability.getData(serverLevel);
-        if (data == null) return;
+        Long2ObjectMap<ChunkSpoilageData> loadedChunks = ChunkSpoilageCapability.getLoadedChunkData(serverLevel);
+        if (loadedChunks.isEmpty()) return;
 
-        Map<BlockPos, ChunkSpoilageData.BlockSpoilageEntry> allEntries = data.getAllEntries();
-        if (allEntries.isEmpty()) return;
+        // wait for the previous round to finish before queueing another
+        SpoilageWorkScheduler.Source source = new SpoilageWorkScheduler.Source("block sync", serverLevel.dimension());
+        if (!SpoilageWorkScheduler.tryBeginRound(source, worldTime)) return;
 
-        long worldTime = serverLevel.getGameTime();
+        // one work unit per chunk, each sends its own packet
+        ResourceKey<Level> dimension = serverLevel.dimension();
+        LongIterator chunkKeys = loadedChunks.keySet().iterator();
+        while (chunkKeys.hasNext()) {
+            long chunkKey = chunkKeys.nextLong();
+            SpoilageWorkScheduler.submit(source, server -> syncChunk(server, dimension, chunkKey));
+        }
+    }
 
-        // group updates by chunk for efficient packet sending
-        Map<ChunkPos, Map<BlockPos, Float>> chunkUpdates = new HashMap<>();
-        List<BlockPos> entriesToRemove = new ArrayList<>();
+    // sends what changed in a chunk's tracked blocks to players watching it
+    private static void syncChunk(MinecraftServer server, ResourceKey<Level> dimension, long chunkKey) {
+        ServerLevel serverLevel = server.getLevel(dimension);
+        if (serverLevel == null) return;
 
-        for (Map.Entry<BlockPos, ChunkSpoilageData.BlockSpoilageEntry> entry : allEntries.entrySet()) {
-            BlockPos pos = entry.getKey();
-            ChunkSpoilageData.BlockSpoilageEntry spoilageEntry = entry.getValue();
-            ChunkSpoilageData.BlockType type = spoilageEntry.type();
-
-            // sync recovering crops for visual tint feedback
-            if (type == ChunkSpoilageData.BlockType.CROP) {
-                if (SpoilageConfig.isStaleSeedGrowthPenaltyEnabled() && spoilageEntry.initialSpoilage() > 0) {
-                    long recoveryPeriod = SpoilageConfig.getStaleSeedRecoveryTicks();
-                    float recovering = spoilageEntry.getRecoveringSpoilage(worldTime, recoveryPeriod);
-                    if (recovering > 0.05f) {
-                        BlockState cropState = serverLevel.getBlockState(pos);
-                        if (!cropState.isAir() && cropState.getBlock() instanceof CropBlock) {
-                            ChunkPos chunkPos = new ChunkPos(pos);
-                            chunkUpdates.computeIfAbsent(chunkPos, k -> new HashMap<>()).put(pos, recovering);
-                        }
-                    }
-                }
-                continue;
-            }
+        ChunkSpoilageData chunkData = ChunkSpoilageCapability.getLoadedChunkData(serverLevel).get(chunkKey);
+        if (chunkData == null) return;
 
-            BlockState state = serverLevel.getBlockState(pos);
+        long worldTime = serverLevel.getGameTime();
+        List<BlockPos> entriesToRemove = new ArrayList<>();
+        Long2ObjectMap<BlockSpoilageCurve> curves = collectCurves(serverLevel, chunkData, worldTime, entriesToRemove);
 
-            if (type == ChunkSpoilageData.BlockType.MATURE_CROP) {
-                if (state.isAir() || !(state.getBlock() instanceof CropBlock)) {
-                    entriesToRemove.add(pos);
-                    continue;
-                }
+        // remove stale entries after iteration, clients are told through the removals below
+        for (BlockPos pos : entriesToRemove) {
+            ChunkSpoilageCapability.removeBlockSpoilage(serverLevel, pos);
+        }
 
-                long freshPeriod = SpoilageConfig.getCropFreshPeriodTicks();
-                long rotPeriod = SpoilageConfig.getCropRotPeriodTicks();
-                float rotProgress = spoilageEntry.getRotProgress(worldTime, freshPeriod, rotPeriod);
+        for (ServerPlayer player : getWatchingPlayers(serverLevel, new ChunkPos(chunkKey))) {
+            sendChanges(player, dimension, chunkKey, curves, worldTime);
+        }
+    }
 
-                if (rotProgress > 0.05f) {
-                    ChunkPos chunkPos = new ChunkPos(pos);
-                    chunkUpdates.computeIfAbsent(chunkPos, k -> new HashMap<>()).put(pos, rotProgress);
+    // sends a player the entries of a chunk that differ from what its client holds,
+    // and removals for entries its client holds that are no longer tracked or shown;
+    // updates the player's sent state to match
+    private static void sendChanges(ServerPlayer player, ResourceKey<Level> dimension, long chunkKey,
+                                    Long2ObjectMap<BlockSpoilageCurve> current, long worldTime) {
+        Long2ObjectMap<BlockSpoilageCurve> sent = current.isEmpty()
+                ? getSentIfPresent(player, dimension, chunkKey)
+                : getSent(player, dimension, chunkKey);
+        if (sent == null) return;
+
+        boolean extrapolate = SpoilageConfig.isBlockSpoilageExtrapolationEnabled();
+        BlockSpoilageSyncPacket.Builder values = new BlockSpoilageSyncPacket.Builder(new ChunkPos(chunkKey));
+        Map<BlockPos, BlockSpoilageCurve> curves = new HashMap<>();
+
+        for (Long2ObjectMap.Entry<BlockSpoilageCurve> entry : current.long2ObjectEntrySet()) {
+            long posKey = entry.getLongKey();
+            BlockSpoilageCurve curve = entry.getValue();
+            if (!isShown(curve, worldTime, extrapolate)) continue;
+
+            BlockSpoilageCurve previous = sent.get(posKey);
+            if (extrapolate) {
+                if (!curve.equals(previous)) {
+                    sent.put(posKey, curve);
+                    curves.put(BlockPos.of(posKey), curve);
+                }
+            } else {
+                float value = curve.valueAt(worldTime);
+                if (previous == null || previous.perTick() != 0.0f
+                        || BlockSpoilageSyncPacket.quantize(previous.base()) != BlockSpoilageSyncPacket.quantize(value)) {
+                    sent.put(posKey, BlockSpoilageCurve.constant(value));
+                    values.add(posKey, value);
                 }
-                continue;
             }
+        }
 
-            if (state.isAir() || !SpoilageItemRegistry.isBlockSpoilable(state.getBlock())) {
-                entriesToRemove.add(pos);
-                continue;
+        LongIterator sentKeys = sent.keySet().iterator();
+        while (sentKeys.hasNext()) {
+            long posKey = sentKeys.nextLong();
+            BlockSpoilageCurve curve = current.get(posKey);
+            if (curve == null || !isShown(curve, worldTime, extrapolate)) {
+                sentKeys.remove();
+                if (extrapolate) {
+                    curves.put(BlockPos.of(posKey), BlockSpoilageCurve.NONE);
+                } else {
+                    values.add(posKey, 0.0f);
+                }
             }
-
-            float spoilage = calculateBlockSpoilage(serverLevel, pos, state.getBlock(), spoilageEntry, worldTime);
-
-            ChunkPos chunkPos = new ChunkPos(pos);
-            chunkUpdates.computeIfAbsent(chunkPos, k -> new HashMap<>()).put(pos, spoilage);
         }
 
-        // remove stale entries after iteration and notify clients to clear cache
-        for (BlockPos pos : entriesToRemove) {
-            data.removeEntry(pos);
-            ChunkPos staleChunk = new ChunkPos(pos);
-            chunkUpdates.computeIfAbsent(staleChunk, k -> new HashMap<>()).put(pos, 0.0f);
+        if (sent.isEmpty()) {
+            forgetChunk(player, dimension, chunkKey);
+        }
+        if (!values.isEmpty()) {
+            sendToPlayer(player, values.build());
         }
+        if (!curves.isEmpty()) {
+            sendToPlayer(player, new BlockSpoilageCurveSyncPacket(curves));
+        }
+    }
 
-        // send updates to players watching each chunk
-        for (Map.Entry<ChunkPos, Map<BlockPos, Float>> chunkEntry : chunkUpdates.entrySet()) {
-            ChunkPos chunkPos = chunkEntry.getKey();
-            Map<BlockPos, Float> spoilageData = chunkEntry.getValue();
+    // checks if a block's spoilage is shown; fixed values are shown while above zero,
+    // curves as long as they are above zero or will rise above it later
+    private static boolean isShown(BlockSpoilageCurve curve, long worldTime, boolean extrapolate) {
+        if (curve.valueAt(worldTime) > 0.0f) return true;
+        return extrapolate && curve.perTick() > 0.0f;
+    }
 
-            if (!spoilageData.isEmpty()) {
-                BlockSpoilageSyncPacket packet = new BlockSpoilageSyncPacket(spoilageData);
+    // syncs a single block's spoilage to all players watching the chunk at the end of the tick;
+    // used for instant visual updates when placing spoiled blocks;
+    // updates are coalesced per chunk, a later update of the same block in the tick replaces the earlier one
+    public static void syncSingleBlock(ServerLevel level, BlockPos pos, float spoilage) {
+        if (!SpoilageConfig.isEnabled()) return;
 
-                for (ServerPlayer player : serverLevel.players()) {
-                    if (isPlayerWatchingChunk(player, chunkPos)) {
-                        sendToPlayer(player, packet);
-                    }
-                }
+        PENDING.computeIfAbsent(level.dimension(), k -> new Long2ObjectOpenHashMap<>())
+                .computeIfAbsent(ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4), k -> new Long2FloatOpenHashMap())
+                .put(pos.asLong(), spoilage);
+    }
+
+    // sends the single-block updates queued during the tick, one packet per chunk and watching player
+    public static void flushPendingBlocks(MinecraftServer server) {
+        if (PENDING.isEmpty()) return;
+
+        for (Map.Entry<ResourceKey<Level>, Long2ObjectMap<Long2FloatMap>> dimensionEntry : PENDING.entrySet()) {
+            ServerLevel level = server.getLevel(dimensionEntry.getKey());
+            if (level == null) continue;
+
+            for (Long2ObjectMap.Entry<Long2FloatMap> chunkEntry : dimensionEntry.getValue().long2ObjectEntrySet()) {
+                flushChunk(level, chunkEntry.getLongKey(), chunkEntry.getValue());
             }
         }
+
+        PENDING.clear();
     }
 
-    // immediately syncs a single block's spoilage to all players watching the chunk;
-    // used for instant visual updates when placing spoiled blocks
-    public static void syncSingleBlock(ServerLevel level, BlockPos pos, float spoilage) {
-        if (!SpoilageConfig.isEnabled()) return;
+    private static void flushChunk(ServerLevel level, long chunkKey, Long2FloatMap blocks) {
+        ChunkPos chunkPos = new ChunkPos(chunkKey);
+        List<ServerPlayer> players = getWatchingPlayers(level, chunkPos);
+        if (players.isEmpty()) return;
+
+        boolean extrapolate = SpoilageConfig.isBlockSpoilageExtrapolationEnabled();
+        Long2ObjectMap<BlockSpoilageCurve> sentCurves = new Long2ObjectOpenHashMap<>();
+        BlockSpoilageSyncPacket.Builder values = new BlockSpoilageSyncPacket.Builder(chunkPos);
+        Map<BlockPos, BlockSpoilageCurve> curves = new HashMap<>();
+
+        for (Long2FloatMap.Entry entry : blocks.long2FloatEntrySet()) {
+            long posKey = entry.getLongKey();
+            float spoilage = entry.getFloatValue();
+            BlockPos pos = BlockPos.of(posKey);
+
+            if (extrapolate) {
+                // the block's curve if it is tracked, so the client keeps it progressing
+                BlockSpoilageCurve curve = null;
+                if (spoilage > 0.0f) {
+                    ChunkSpoilageData.BlockSpoilageEntry spoilageEntry = ChunkSpoilageCapability.getBlockSpoilage(level, pos);
+                    if (spoilageEntry != null) {
+                        curve = getCurve(level, pos, spoilageEntry, null);
+                    }
+                }
+                if (curve == null) {
+                    curve = BlockSpoilageCurve.constant(spoilage);
+                }
+                curves.put(pos, curve);
+                sentCurves.put(posKey, curve);
+            } else {
+                values.add(posKey, spoilage);
+                sentCurves.put(posKey, BlockSpoilageCurve.constant(spoilage));
+            }
+        }
 
-        ChunkPos chunkPos = new ChunkPos(pos);
-        Map<BlockPos, Float> spoilageData = new HashMap<>();
-        spoilageData.put(pos, spoilage);
-        BlockSpoilageSyncPacket packet = new BlockSpoilageSyncPacket(spoilageData);
+        CustomPacketPayload packet = extrapolate ? new BlockSpoilageCurveSyncPacket(curves) : values.build();
 
-        for (ServerPlayer player : level.players()) {
-            if (isPlayerWatchingChunk(player, chunkPos)) {
-                sendToPlayer(player, packet);
+        for (ServerPlayer player : players) {
+            sendToPlayer(player, packet);
+            for (Long2ObjectMap.Entry<BlockSpoilageCurve> entry : sentCurves.long2ObjectEntrySet()) {
+                recordSent(player, level.dimension(), chunkKey, entry.getLongKey(), entry.getValue());
             }
         }
     }
 
-    // checks if a player is watching a specific chunk
-    private static boolean isPlayerWatchingChunk(ServerPlayer player, ChunkPos chunkPos) {
-        ChunkPos playerChunk = player.chunkPosition();
-        int viewDistance = player.serverLevel().getServer().getPlayerList().getViewDistance();
+    // forgets everything sent to a player that left
+    public static void forgetPlayer(ServerPlayer player) {
+        SENT.remove(player.getUUID());
+        // normally unwatched chunk by chunk already; this catches anything missed
+        for (Long2ObjectMap<List<ServerPlayer>> chunks : WATCHERS.values()) {
+            chunks.values().removeIf(watchers -> watchers.remove(player) && watchers.isEmpty());
+        }
+    }
 
-        int dx = Math.abs(playerChunk.x - chunkPos.x);
-        int dz = Math.abs(playerChunk.z - chunkPos.z);
+    // clears the watchers of an unloading level
+    public static void onLevelUnload(ServerLevel level) {
+        WATCHERS.remove(level.dimension());
+    }
 
-        return dx <= viewDistance && dz <= viewDistance;
+    // records a single entry sent to a player; a curve that is never shown clears the client's entry
+    private static void recordSent(ServerPlayer player, ResourceKey<Level> dimension, long chunkKey,
+                                   long posKey, BlockSpoilageCurve curve) {
+        if (curve.isNeverShown()) {
+            Long2ObjectMap<BlockSpoilageCurve> sent = getSentIfPresent(player, dimension, chunkKey);
+            if (sent != null) {
+                sent.remove(posKey);
+            }
+            return;
+        }
+        getSent(player, dimension, chunkKey).put(posKey, curve);
     }
 
-    // gets all spoilage data for blocks in a chunk
-    private static Map<BlockPos, Float> getChunkSpoilageData(ServerLevel level, ChunkPos chunkPos) {
-        Map<BlockPos, Float> result = new HashMap<>();
+    // gets what a player's client holds for a chunk, creating the state if needed;
+    // a player that changed dimension starts over, the client clears its cache then
+    private static Long2ObjectMap<BlockSpoilageCurve> getSent(ServerPlayer player, ResourceKey<Level> dimension, long chunkKey) {
+        SentState state = SENT.get(player.getUUID());
+        if (state == null || state.dimension() != dimension) {
+            state = new SentState(dimension, new Long2ObjectOpenHashMap<>());
+            SENT.put(player.getUUID(), state);
+        }
+        return state.chunks().computeIfAbsent(chunkKey, k -> new Long2ObjectOpenHashMap<>());
+    }
 
-        ChunkSpoilageData data = ChunkSpoilageCapability.getData(level);
-        if (data == null) return result;
+    @Nullable
+    private static Long2ObjectMap<BlockSpoilageCurve> getSentIfPresent(ServerPlayer player, ResourceKey<Level> dimension, long chunkKey) {
+        SentState state = SENT.get(player.getUUID());
+        if (state == null || state.dimension() != dimension) return null;
+        return state.chunks().get(chunkKey);
+    }
 
-        long worldTime = level.getGameTime();
-        int minX = chunkPos.getMinBlockX();
-        int maxX = chunkPos.getMaxBlockX();
-        int minZ = chunkPos.getMinBlockZ();
-        int maxZ = chunkPos.getMaxBlockZ();
+    // forgets what was sent to a player for a chunk it no longer watches
+    private static void forgetChunk(ServerPlayer player, ResourceKey<Level> dimension, long chunkKey) {
+        SentState state = SENT.get(player.getUUID());
+        if (state != null && state.dimension() == dimension) {
+            state.chunks().remove(chunkKey);
+        }
+    }
 
-        for (Map.Entry<BlockPos, ChunkSpoilageData.BlockSpoilageEntry> entry : data.getAllEntries().entrySet()) {
-            BlockPos pos = entry.getKey();
+    // gets the players that have a chunk loaded on their client, from the chunk map's player tracking
+    private static List<ServerPlayer> getWatchingPlayers(ServerLevel level, ChunkPos chunkPos) {
+        Long2ObjectMap<List<ServerPlayer>> chunks = WATCHERS.get(level.dimension());
+        if (chunks == null) return List.of();
+        List<ServerPlayer> watchers = chunks.get(chunkPos.toLong());
+        return watchers != null ? watchers : List.of();
+    }
 
-            if (pos.getX() < minX || pos.getX() > maxX || pos.getZ() < minZ || pos.getZ() > maxZ) {
-                continue;
+    // gets the spoilage curves of a chunk's tracked blocks, keyed by BlockPos.asLong()
+    // @param staleEntries collects entries whose block is gone, or null to skip them silently
+    private static Long2ObjectMap<BlockSpoilageCurve> collectCurves(ServerLevel level, ChunkSpoilageData data, long worldTime,
+                                                                   @Nullable List<BlockPos> staleEntries) {
+        Long2ObjectMap<BlockSpoilageCurve> result = new Long2ObjectOpenHashMap<>();
+        BlockSpoilageEntryMap entries = data.getEntries();
+
+        for (int slot = entries.nextSlot(0); slot >= 0; slot = entries.nextSlot(slot + 1)) {
+            long posKey = entries.keyAt(slot);
+            BlockPos pos = BlockPos.of(posKey);
+            BlockSpoilageCurve curve = getCurve(level, pos, entries.entryAt(slot), staleEntries);
+            if (curve != null) {
+                result.put(posKey, curve);
             }
+        }
 
-            ChunkSpoilageData.BlockSpoilageEntry spoilageEntry = entry.getValue();
-            ChunkSpoilageData.BlockType type = spoilageEntry.type();
-
-            if (type == ChunkSpoilageData.BlockType.CROP) {
-                if (SpoilageConfig.isStaleSeedGrowthPenaltyEnabled() && spoilageEntry.initialSpoilage() > 0) {
-                    long recoveryPeriod = SpoilageConfig.getStaleSeedRecoveryTicks();
-                    float recovering = spoilageEntry.getRecoveringSpoilage(worldTime, recoveryPeriod);
-                    if (recovering > 0.05f) {
-                        BlockState cropState = level.getBlockState(pos);
-                        if (!cropState.isAir() && cropState.getBlock() instanceof CropBlock) {
-                            result.put(pos, recovering);
-                        }
-                    }
-                }
-                continue;
-            }
+        return result;
+    }
 
-            BlockState state = level.getBlockState(pos);
+    // gets the spoilage curve of a tracked block, or null if nothing is shown for it
+    // @param staleEntries collects the position if the block is gone, may be null
+    @Nullable
+    private static BlockSpoilageCurve getCurve(ServerLevel level, BlockPos pos, ChunkSpoilageData.BlockSpoilageEntry entry,
+                                               @Nullable List<BlockPos> staleEntries) {
+        ChunkSpoilageData.BlockType type = entry.type();
 
-            if (type == ChunkSpoilageData.BlockType.MATURE_CROP) {
-                if (state.isAir() || !(state.getBlock() instanceof CropBlock)) continue;
+        // recovering crops for visual tint feedback
+        if (type == ChunkSpoilageData.BlockType.CROP) {
+            if (!SpoilageConfig.isStaleSeedGrowthPenaltyEnabled() || entry.initialSpoilage() <= 0) return null;
 
-                long freshPeriod = SpoilageConfig.getCropFreshPeriodTicks();
-                long rotPeriod = SpoilageConfig.getCropRotPeriodTicks();
-                float rotProgress = spoilageEntry.getRotProgress(worldTime, freshPeriod, rotPeriod);
+            BlockState cropState = level.getBlockState(pos);
+            if (cropState.isAir() || !(cropState.getBlock() instanceof CropBlock)) return null;
 
-                if (rotProgress > 0.05f) {
-                    result.put(pos, rotProgress);
-                }
-                continue;
-            }
+            long recoveryPeriod = Math.max(1L, SpoilageConfig.getStaleSeedRecoveryTicks());
+            return new BlockSpoilageCurve(entry.creationTime(), entry.initialSpoilage(), -1.0f / recoveryPeriod,
+                    CROP_DISPLAY_THRESHOLD);
+        }
 
-            if (state.isAir() || !SpoilageItemRegistry.isBlockSpoilable(state.getBlock())) {
-                continue;
+        BlockState state = level.getBlockState(pos);
+
+        // rot starts once the fresh period after full growth is over
+        if (type == ChunkSpoilageData.BlockType.MATURE_CROP) {
+            if (state.isAir() || !(state.getBlock() instanceof CropBlock)) {
+                if (staleEntries != null) staleEntries.add(pos);
+                return null;
             }
+            if (entry.fullyGrownTime() < 0) return null;
 
-            float spoilage = calculateBlockSpoilage(level, pos, state.getBlock(), spoilageEntry, worldTime);
-            result.put(pos, spoilage);
+            long freshPeriod = SpoilageConfig.getCropFreshPeriodTicks();
+            long rotPeriod = Math.max(1L, SpoilageConfig.getCropRotPeriodTicks());
+            return new BlockSpoilageCurve(entry.fullyGrownTime() + freshPeriod, 0.0f, 1.0f / rotPeriod,
+                    CROP_DISPLAY_THRESHOLD);
         }
 
-        return result;
-    }
-
-    // calculates the current spoilage percentage for a block
-    private static float calculateBlockSpoilage(ServerLevel level, BlockPos pos, Block block,
-                                                 ChunkSpoilageData.BlockSpoilageEntry entry, long worldTime) {
-        ResourceLocation blockId = BuiltInRegistries.BLOCK.getKey(block);
-        ResourceLocation linkedItemId = SpoilageItemRegistry.getLinkedItem(blockId);
-
-        long lifetime;
-        if (linkedItemId != null) {
-            ItemStack itemStack = new ItemStack(BuiltInRegistries.ITEM.get(linkedItemId));
-            lifetime = SpoilageCalculator.getLifetime(itemStack);
-        } else {
-            lifetime = 24000L * 3;
+        if (state.isAir() || !SpoilageItemRegistry.isBlockSpoilable(state.getBlock())) {
+            if (staleEntries != null) staleEntries.add(pos);
+            return null;
         }
 
-        if (lifetime <= 0) {
-            lifetime = 24000L * 3;
-        }
+        float perTick = entry.isPaused() ? 0.0f : 1.0f / getBlockLifetime(state.getBlock());
+        return new BlockSpoilageCurve(entry.creationTime(), entry.initialSpoilage(), perTick, 0.0f);
+    }
+
+    // gets the lifetime of a spoilable block from its linked item, a table lookup by raw block ID
+    private static long getBlockLifetime(Block block) {
+        long lifetime = SpoilageItemRegistry.getLinkedItemLifetime(block);
+        return lifetime > 0 ? lifetime : 24000L * 3;
+    }
 
-        return entry.getSpoilage(worldTime, lifetime);
+    // what a player's client holds in its current dimension, by ChunkPos.toLong() and BlockPos.asLong()
+    private record SentState(ResourceKey<Level> dimension, Long2ObjectMap<Long2ObjectMap<BlockSpoilageCurve>> chunks) {
     }
 }
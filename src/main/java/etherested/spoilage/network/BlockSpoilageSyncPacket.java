@@ -1,47 +1,86 @@
 package etherested.spoilage.network;
 
 import etherested.spoilage.client.BlockSpoilageClientCache;
+import it.unimi.dsi.fastutil.bytes.ByteArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
 import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
 import net.minecraft.network.FriendlyByteBuf;
-import net.minecraft.network.codec.ByteBufCodecs;
 import net.minecraft.network.codec.StreamCodec;
 import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.util.Mth;
+import net.minecraft.world.level.ChunkPos;
 
 //? if neoforge {
 import net.neoforged.neoforge.network.handling.IPayloadContext;
 //?}
 
-import java.util.HashMap;
-import java.util.Map;
 
+// network packet for syncing block spoilage data of one chunk from server to client;
+// positions are stored as BlockPos.asLong() and spoilage quantized to one byte (0-255), 0 clears the entry;
+// on the wire each entry is a section-relative short, a varint section Y and the spoilage byte
+// after a single chunk position header, and decoding fills plain arrays instead of a map
+public record BlockSpoilageSyncPacket(ChunkPos chunkPos, long[] positions, byte[] spoilage) implements CustomPacketPayload {
 
-// network packet for syncing block spoilage data from server to client;
-// contains a map of block positions to their spoilage percentages
-public record BlockSpoilageSyncPacket(Map<BlockPos, Float> spoilageData) implements CustomPacketPayload {
+    // steps a spoilage value is quantized to
+    public static final int QUANTIZATION_STEPS = 255;
 
     public static final CustomPacketPayload.Type<BlockSpoilageSyncPacket> TYPE =
             new CustomPacketPayload.Type<>(ResourceLocation.fromNamespaceAndPath("spoilage", "block_spoilage_sync"));
 
-    public static final StreamCodec<FriendlyByteBuf, BlockSpoilageSyncPacket> STREAM_CODEC = StreamCodec.composite(
-            ByteBufCodecs.map(
-                    HashMap::new,
-                    BlockPos.STREAM_CODEC,
-                    ByteBufCodecs.FLOAT
-            ),
-            BlockSpoilageSyncPacket::spoilageData,
-            BlockSpoilageSyncPacket::new
-    );
+    public static final StreamCodec<FriendlyByteBuf, BlockSpoilageSyncPacket> STREAM_CODEC =
+            StreamCodec.of(BlockSpoilageSyncPacket::encode, BlockSpoilageSyncPacket::decode);
 
     @Override
     public Type<? extends CustomPacketPayload> type() {
         return TYPE;
     }
 
+    // quantizes a spoilage value to one byte (0-255)
+    public static int quantize(float spoilage) {
+        return Math.round(Mth.clamp(spoilage, 0.0f, 1.0f) * QUANTIZATION_STEPS);
+    }
+
+    private static void encode(FriendlyByteBuf buf, BlockSpoilageSyncPacket packet) {
+        buf.writeChunkPos(packet.chunkPos());
+        buf.writeVarInt(packet.positions().length);
+
+        for (int i = 0; i < packet.positions().length; i++) {
+            BlockPos pos = BlockPos.of(packet.positions()[i]);
+            buf.writeShort(SectionPos.sectionRelativePos(pos));
+            // section Y is negative below zero, zigzag keeps it to one byte
+            int sectionY = SectionPos.blockToSectionCoord(pos.getY());
+            buf.writeVarInt((sectionY << 1) ^ (sectionY >> 31));
+            buf.writeByte(packet.spoilage()[i]);
+        }
+    }
+
+    private static BlockSpoilageSyncPacket decode(FriendlyByteBuf buf) {
+        ChunkPos chunkPos = buf.readChunkPos();
+        int count = buf.readVarInt();
+        long[] positions = new long[count];
+        byte[] spoilage = new byte[count];
+
+        for (int i = 0; i < count; i++) {
+            short relative = buf.readShort();
+            int zigzag = buf.readVarInt();
+            int sectionY = (zigzag >>> 1) ^ -(zigzag & 1);
+            positions[i] = BlockPos.asLong(
+                    chunkPos.getBlockX(SectionPos.sectionRelativeX(relative)),
+                    SectionPos.sectionToBlockCoord(sectionY, SectionPos.sectionRelativeY(relative)),
+                    chunkPos.getBlockZ(SectionPos.sectionRelativeZ(relative)));
+            spoilage[i] = buf.readByte();
+        }
+
+        return new BlockSpoilageSyncPacket(chunkPos, positions, spoilage);
+    }
+
     // shared client handler logic for both loaders
     public static void handleClientShared(BlockSpoilageSyncPacket packet) {
-        for (Map.Entry<BlockPos, Float> entry : packet.spoilageData().entrySet()) {
-            BlockSpoilageClientCache.updateSpoilage(entry.getKey(), entry.getValue());
+        for (int i = 0; i < packet.positions().length; i++) {
+            float spoilage = (packet.spoilage()[i] & 0xFF) / (float) QUANTIZATION_STEPS;
+            BlockSpoilageClientCache.updateSpoilage(BlockPos.of(packet.positions()[i]), spoilage);
         }
     }
 
@@ -51,4 +90,30 @@ public record BlockSpoilageSyncPacket(Map<BlockPos, Float> spoilageData) impleme
         context.enqueueWork(() -> handleClientShared(packet));
     }
     //?}
+
+    // collects the entries of one chunk for a packet
+    public static class Builder {
+        private final ChunkPos chunkPos;
+        private final LongArrayList positions = new LongArrayList();
+        private final ByteArrayList spoilage = new ByteArrayList();
+
+        public Builder(ChunkPos chunkPos) {
+            this.chunkPos = chunkPos;
+        }
+
+        // adds a block of the chunk, 0 clears it on the client
+        public Builder add(long posKey, float value) {
+            positions.add(posKey);
+            spoilage.add((byte) quantize(value));
+            return this;
+        }
+
+        public boolean isEmpty() {
+            return positions.isEmpty();
+        }
+
+        public BlockSpoilageSyncPacket build() {
+            return new BlockSpoilageSyncPacket(chunkPos, positions.toLongArray(), spoilage.toByteArray());
+        }
+    }
 }
@@ -22,6 +22,13 @@ public class ModNetworking {
                 BlockSpoilageSyncPacket.STREAM_CODEC,
                 BlockSpoilageSyncPacket::handleClientNeoForge
         );
+
+        // register block spoilage curve sync packet (server -> client)
+        registrar.playToClient(
+                BlockSpoilageCurveSyncPacket.TYPE,
+                BlockSpoilageCurveSyncPacket.STREAM_CODEC,
+                BlockSpoilageCurveSyncPacket::handleClientNeoForge
+        );
     }
 }
 //?} else {
@@ -36,6 +43,10 @@ public class ModNetworking {
                 BlockSpoilageSyncPacket.TYPE,
                 BlockSpoilageSyncPacket.STREAM_CODEC
         );
+        PayloadTypeRegistry.playS2C().register(
+                BlockSpoilageCurveSyncPacket.TYPE,
+                BlockSpoilageCurveSyncPacket.STREAM_CODEC
+        );
     }
 
     public static void registerFabricClient() {
@@ -46,6 +57,12 @@ public class ModNetworking {
                     context.client().execute(() -> BlockSpoilageSyncPacket.handleClientShared(packet));
                 }
         );
+        ClientPlayNetworking.registerGlobalReceiver(
+                BlockSpoilageCurveSyncPacket.TYPE,
+                (packet, context) -> {
+                    context.client().execute(() -> BlockSpoilageCurveSyncPacket.handleClientShared(packet));
+                }
+        );
     }
 }
 *///?}